@@ -0,0 +1,69 @@
+package ai.proj;
+
+import java.util.SplittableRandom;
+
+/**
+ * Reproducible grids for the benchmarks: the same (size, seed) always gives the
+ * same grid, so results of two builds can be compared directly.
+ *
+ * A size x size grid with 3 stores, 8 destinations, size / 8 tunnels, traffic
+ * levels 1..4 and about one edge in ten blocked, in the generator's
+ * initialState / trafficString format.
+ */
+final class BenchmarkGrids {
+
+    static final int STORES = 3;
+    static final int DESTINATIONS = 8;
+
+    private BenchmarkGrids() {}
+
+    static GridSnapshot grid(int size, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        boolean[] used = new boolean[size * size];
+        int tunnels = Math.max(1, size / 8);
+
+        StringBuilder initial = new StringBuilder();
+        initial.append(size).append(';').append(size).append(';')
+               .append(DESTINATIONS).append(';').append(STORES).append(';');
+        appendCells(initial, DESTINATIONS, size, used, random);
+        initial.append(';');
+        appendCells(initial, STORES, size, used, random);
+        initial.append(';');
+        for (int i = 0; i < tunnels; i++) {
+            appendCells(initial, 2, size, used, random);
+            initial.append(';');
+        }
+
+        StringBuilder traffic = new StringBuilder(size * size * 24);
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                if (c + 1 < size) {
+                    traffic.append(r).append(',').append(c).append(',').append(r).append(',').append(c + 1)
+                           .append(',').append(level(random)).append(';');
+                }
+                if (r + 1 < size) {
+                    traffic.append(r).append(',').append(c).append(',').append(r + 1).append(',').append(c)
+                           .append(',').append(level(random)).append(';');
+                }
+            }
+        }
+        return GridSnapshot.parse(initial.toString(), traffic.toString());
+    }
+
+    // count distinct free cells as "r,c,r,c,..."
+    private static void appendCells(StringBuilder sb, int count, int size, boolean[] used, SplittableRandom random) {
+        for (int i = 0; i < count; i++) {
+            int cell;
+            do {
+                cell = random.nextInt(size * size);
+            } while (used[cell]);
+            used[cell] = true;
+            if (i > 0) sb.append(',');
+            sb.append(cell / size).append(',').append(cell % size);
+        }
+    }
+
+    private static int level(SplittableRandom random) {
+        return random.nextInt(10) == 0 ? 0 : random.nextInt(1, 5);
+    }
+}
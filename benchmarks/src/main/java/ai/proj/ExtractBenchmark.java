@@ -0,0 +1,58 @@
+package ai.proj;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading a grid from its initialState / trafficString: GenericSearch.extract
+ * (parse plus successor graph) and GridModel.parse on its own.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ExtractBenchmark {
+
+    @Param({"32", "256", "512"})
+    public int size;
+
+    @Param({"42"})
+    public long seed;
+
+    private String initialState;
+    private String trafficString;
+    private UniformCost search;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        GridSnapshot snapshot = BenchmarkGrids.grid(size, seed);
+        initialState = snapshot.getInitialState();
+        trafficString = snapshot.getTrafficString();
+        search = new UniformCost();
+    }
+
+    @Benchmark
+    public GridGraph extract() {
+        search.extract(initialState, trafficString);
+        return search.graph;
+    }
+
+    @Benchmark
+    public GridModel parse() {
+        return GridModel.parse(initialState, trafficString);
+    }
+}
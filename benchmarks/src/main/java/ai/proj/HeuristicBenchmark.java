@@ -0,0 +1,92 @@
+package ai.proj;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heuristic cost towards one goal: a full per-goal table (what HeuristicTables
+ * computes once per goal) and per-cell estimates through the int and the
+ * String overloads of findForPosition.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class HeuristicBenchmark {
+
+    @Param({"h1", "h2", "h3", "h4"})
+    public String heuristic;
+
+    @Param({"32", "256"})
+    public int size;
+
+    @Param({"42"})
+    public long seed;
+
+    private heuristic function;
+    private GridModel grid;
+    private int goalR;
+    private int goalC;
+    private String goalState;
+    private String[] states;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        grid = BenchmarkGrids.grid(size, seed).getGrid();
+        function = switch (heuristic) {
+            case "h1" -> new h1();
+            case "h2" -> new h2();
+            case "h3" -> new h3();
+            case "h4" -> new h4();
+            default -> throw new IllegalArgumentException("Unknown heuristic: " + heuristic);
+        };
+        function.prepare(grid);
+        goalR = grid.getDestinations()[0][0];
+        goalC = grid.getDestinations()[0][1];
+        goalState = goalR + "," + goalC;
+        states = new String[grid.getRows() * grid.getCols()];
+        for (int cell = 0; cell < states.length; cell++) {
+            states[cell] = (cell / grid.getCols()) + "," + (cell % grid.getCols());
+        }
+    }
+
+    @Benchmark
+    public int[] fillTable() {
+        return function.fillTable(goalR, goalC, grid.getRows(), grid.getCols());
+    }
+
+    @Benchmark
+    public int findForPosition() {
+        int sum = 0;
+        for (int r = 0; r < grid.getRows(); r++) {
+            for (int c = 0; c < grid.getCols(); c++) {
+                sum += function.findForPosition(r, c, goalR, goalC);
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int findForPositionString() {
+        int sum = 0;
+        for (String state : states) {
+            sum += function.findForPosition(state, goalState, grid.getNumTunnels(), grid.getRows(), grid.getCols(),
+                                            grid.getTunnels());
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,88 @@
+package ai.proj;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One full uncached plan: every store to every destination with one strategy,
+ * i.e. what DeliveryPlanner.plan() searches before picking the cheapest store.
+ *
+ * Per-grid preprocessing (landmarks, contraction hierarchy, heuristic tables)
+ * happens in setup, so this measures the steady-state query cost. IDA* runs with
+ * h3 only and ITERATIVEDEEPENING not at all by default: the other variants take
+ * tens of seconds per plan on the 256 grid. Add them for small grids with e.g.
+ * -p strategy=IDASTAR1,ITERATIVEDEEPENING -p size=32.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class StrategyBenchmark {
+
+    @Param({"BFS", "DFS", "UCS", "UCSDIAL", "BIDIRECTIONAL", "CH",
+            "ASTAR1", "ASTAR2", "ASTAR3", "ASTAR4",
+            "IDASTAR3",
+            "GREEDY1", "GREEDY2", "GREEDY3", "GREEDY4"})
+    public String strategy;
+
+    @Param({"32", "128", "256"})
+    public int size;
+
+    @Param({"42"})
+    public long seed;
+
+    private GridModel grid;
+    private String[] stores;
+    private String[] goals;
+    private DeliverySearch search;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        grid = BenchmarkGrids.grid(size, seed).getGrid();
+        stores = states(grid.getStores());
+        goals = states(grid.getDestinations());
+        GenericSearch instance = DeliveryPlanner.chooseStrategy(strategy);
+        if (instance == null) {
+            throw new IllegalArgumentException("Unknown strategy: " + strategy);
+        }
+        search = new DeliverySearch(instance);
+        // Load the grid and build per-grid and per-goal tables outside the measurement
+        for (String store : stores) {
+            for (String goal : goals) {
+                search.solve(grid, store, goal);
+            }
+        }
+    }
+
+    @Benchmark
+    public void planAllPairs(Blackhole bh) {
+        for (String store : stores) {
+            for (String goal : goals) {
+                bh.consume(search.solve(grid, store, goal));
+            }
+        }
+    }
+
+    static String[] states(int[][] cells) {
+        String[] states = new String[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            states[i] = cells[i][0] + "," + cells[i][1];
+        }
+        return states;
+    }
+}
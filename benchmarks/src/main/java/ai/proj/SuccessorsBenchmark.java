@@ -0,0 +1,78 @@
+package ai.proj;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Successor generation over every cell of the grid: the String-based
+ * GenericSearch.getSuccessors against the allocation-free GridGraph.successors
+ * used by the search loops.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SuccessorsBenchmark {
+
+    @Param({"32", "256"})
+    public int size;
+
+    @Param({"42"})
+    public long seed;
+
+    private UniformCost search;
+    private GridGraph graph;
+    private String[] states;
+    private int[] cells;
+    private int[] costs;
+    private byte[] actions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        GridModel grid = BenchmarkGrids.grid(size, seed).getGrid();
+        search = new UniformCost();
+        search.load(grid);
+        graph = grid.getGraph();
+        states = new String[graph.cellCount()];
+        for (int cell = 0; cell < states.length; cell++) {
+            states[cell] = graph.row(cell) + "," + graph.col(cell);
+        }
+        cells = new int[graph.maxDegree()];
+        costs = new int[graph.maxDegree()];
+        actions = new byte[graph.maxDegree()];
+    }
+
+    @Benchmark
+    public void getSuccessors(Blackhole bh) {
+        for (String state : states) {
+            bh.consume(search.getSuccessors(state));
+        }
+    }
+
+    @Benchmark
+    public int graphSuccessors() {
+        int sum = 0;
+        for (int cell = 0, n = graph.cellCount(); cell < n; cell++) {
+            int count = graph.successors(cell, cells, costs, actions);
+            for (int i = 0; i < count; i++) {
+                sum += cells[i] + costs[i];
+            }
+        }
+        return sum;
+    }
+}
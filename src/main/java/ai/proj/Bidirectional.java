@@ -0,0 +1,125 @@
+package ai.proj;
+
+/**
+ * Bidirectional Dijkstra: a forward search from the store and a backward search
+ * from the destination, advancing whichever frontier has the smaller minimum key.
+ *
+ * Every time a cell gets a label from both sides, g_forward + g_backward is a
+ * candidate route cost (mu). The search stops once the two frontier minima add
+ * up to at least mu, since any route not yet seen must cost at least that sum.
+ * The backward side walks GridGraph.predecessors(), so it follows the incoming
+ * moves of each cell and stores the forward action that reaches it.
+ */
+public class Bidirectional extends GenericSearch {
+
+    private IndexedMinHeap forwardFrontier;
+    private IndexedMinHeap backwardFrontier;
+    private CellLabels forward;
+    private CellLabels backward;
+
+    private int meeting;   // cell on the best route found so far
+    private long bestCost; // mu: cost of that route
+
+    @Override
+    public PlanResult solve(String goalState) {
+        int goal = parseCell(goalState);
+        int start = startCell();
+
+        int nodesExpanded = bidirectionalSearch(start, goal);
+        if (meeting < 0) {
+            return PlanResult.failure(nodesExpanded);
+        }
+
+        // Forward labels lead from the start to the meeting cell...
+        int head = forward.depthTo(meeting);
+        int tail = 0;
+        for (int c = meeting; c != goal; c = backward.parent[c]) tail++;
+        long[] moves = PlanResult.words(head + tail);
+        forward.packTo(meeting, moves, head);
+        // ...backward labels from the meeting cell on to the goal
+        int i = head;
+        for (int c = meeting; c != goal; c = backward.parent[c]) PlanResult.put(moves, i++, backward.action[c]);
+        return PlanResult.packed(graph.row(start), graph.col(start), moves, head + tail, (int) bestCost, nodesExpanded);
+    }
+
+    private int bidirectionalSearch(int start, int goal) {
+        if (forward == null || forward.capacity() != graph.cellCount()) {
+            forwardFrontier = new IndexedMinHeap(graph.cellCount());
+            backwardFrontier = new IndexedMinHeap(graph.cellCount());
+            forward = new CellLabels(graph.cellCount());
+            backward = new CellLabels(graph.cellCount());
+        }
+        forwardFrontier.clear();
+        backwardFrontier.clear();
+        forward.reset();
+        backward.reset();
+        meeting = -1;
+        bestCost = Long.MAX_VALUE;
+        int nodesExpanded = 0;
+
+        forward.set(start, 0, -1, (byte) 0);
+        forwardFrontier.insert(start, 0);
+        backward.set(goal, 0, -1, (byte) 0);
+        backwardFrontier.insert(goal, 0);
+        if (start == goal) {
+            meeting = start;
+            bestCost = 0;
+            return nodesExpanded;
+        }
+
+        while (!forwardFrontier.isEmpty() && !backwardFrontier.isEmpty()) {
+            // Stopping rule: no unseen route can beat mu
+            if (forwardFrontier.peekKey() + backwardFrontier.peekKey() >= bestCost) {
+                break;
+            }
+
+            if (forwardFrontier.peekKey() <= backwardFrontier.peekKey()) {
+                int current = forwardFrontier.poll();
+                forward.close(current);
+                nodesExpanded++;
+                int g = forward.g[current];
+                int n = graph.successors(current, succCell, succCost, succAction);
+                for (int i = 0; i < n; i++) {
+                    int next = succCell[i];
+                    if (forward.isClosed(next)) continue;
+                    int newCost = g + succCost[i];
+                    if (newCost < forward.bestG(next)) {
+                        forward.set(next, newCost, current, succAction[i]);
+                        forwardFrontier.insertOrDecrease(next, newCost);
+                        if (backward.isReached(next)) {
+                            offer(next, (long) newCost + backward.g[next]);
+                        }
+                    }
+                }
+            } else {
+                int current = backwardFrontier.poll();
+                backward.close(current);
+                nodesExpanded++;
+                int g = backward.g[current];
+                int n = graph.predecessors(current, succCell, succCost, succAction);
+                for (int i = 0; i < n; i++) {
+                    int prev = succCell[i];
+                    if (backward.isClosed(prev)) continue;
+                    int newCost = g + succCost[i];
+                    if (newCost < backward.bestG(prev)) {
+                        // parent = next cell towards the goal, action = forward move into it
+                        backward.set(prev, newCost, current, succAction[i]);
+                        backwardFrontier.insertOrDecrease(prev, newCost);
+                        if (forward.isReached(prev)) {
+                            offer(prev, (long) newCost + forward.g[prev]);
+                        }
+                    }
+                }
+            }
+        }
+
+        return nodesExpanded;
+    }
+
+    private void offer(int cell, long cost) {
+        if (cost < bestCost) {
+            bestCost = cost;
+            meeting = cell;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package ai.proj;
+
+import java.util.Arrays;
+
+/**
+ * Dial's bucket queue: a circular array of {@code maxStep + 1} buckets, one per
+ * key modulo the ring size. Because step costs are at most {@code maxStep}, every
+ * queued key lies in {@code [lastKey, lastKey + maxStep]}, so push is O(1) and
+ * poll only scans forward over at most {@code maxStep} empty buckets.
+ */
+public final class BucketQueue implements MonotoneQueue {
+
+    private final int[][] buckets;
+    private final int[] counts;
+    private int current;  // key of the bucket being drained
+    private int size;
+
+    public BucketQueue(int maxStep) {
+        int ring = maxStep + 1;
+        this.buckets = new int[ring][4];
+        this.counts = new int[ring];
+    }
+
+    @Override
+    public void push(int item, int key) {
+        int b = key % buckets.length;
+        int[] bucket = buckets[b];
+        if (counts[b] == bucket.length) {
+            bucket = buckets[b] = Arrays.copyOf(bucket, bucket.length * 2);
+        }
+        bucket[counts[b]++] = item;
+        size++;
+    }
+
+    @Override
+    public int poll() {
+        int b = current % buckets.length;
+        while (counts[b] == 0) {
+            current++;
+            b = current % buckets.length;
+        }
+        size--;
+        return buckets[b][--counts[b]];
+    }
+
+    @Override
+    public int lastKey() { return current; }
+
+    @Override
+    public boolean isEmpty() { return size == 0; }
+
+    @Override
+    public void clear() {
+        Arrays.fill(counts, 0);
+        current = 0;
+        size = 0;
+    }
+}
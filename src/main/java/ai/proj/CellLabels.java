@@ -0,0 +1,80 @@
+package ai.proj;
+
+import java.util.Arrays;
+
+/**
+ * Per-cell search labels (best g, parent cell, action from parent, closed flag)
+ * kept in primitive arrays indexed by cell id.
+ *
+ * A strategy allocates one instance per grid and reuses it for every search:
+ * labels are stamped with the current search epoch, so {@link #reset()} is O(1)
+ * instead of clearing rows * cols entries before each store/destination pair.
+ */
+final class CellLabels {
+
+    final int[] g;
+    final int[] parent;
+    final byte[] action;
+    private final int[] reached; // epoch in which g/parent/action were last written
+    private final int[] closed;  // epoch in which the cell was expanded
+    private int epoch;
+
+    CellLabels(int cells) {
+        this.g = new int[cells];
+        this.parent = new int[cells];
+        this.action = new byte[cells];
+        this.reached = new int[cells];
+        this.closed = new int[cells];
+    }
+
+    int capacity() { return g.length; }
+
+    /** Invalidate all labels before starting a new search. */
+    void reset() {
+        if (++epoch == Integer.MAX_VALUE) {
+            Arrays.fill(reached, 0);
+            Arrays.fill(closed, 0);
+            epoch = 1;
+        }
+    }
+
+    boolean isReached(int cell) { return reached[cell] == epoch; }
+    boolean isClosed(int cell) { return closed[cell] == epoch; }
+    void close(int cell) { closed[cell] = epoch; }
+
+    /** Best known cost to the cell in this search, or Integer.MAX_VALUE if unreached. */
+    int bestG(int cell) { return reached[cell] == epoch ? g[cell] : Integer.MAX_VALUE; }
+
+    void set(int cell, int cost, int parentCell, byte parentAction) {
+        reached[cell] = epoch;
+        g[cell] = cost;
+        parent[cell] = parentCell;
+        action[cell] = parentAction;
+    }
+
+    /** Number of moves from the search start to {@code cell}. */
+    int depthTo(int cell) {
+        int depth = 0;
+        for (int c = cell; parent[c] >= 0; c = parent[c]) depth++;
+        return depth;
+    }
+
+    /**
+     * Pack the moves from the search start to {@code cell} into moves[end - depth, end).
+     *
+     * @return the start cell
+     */
+    int packTo(int cell, long[] moves, int end) {
+        int c = cell;
+        for (; parent[c] >= 0; c = parent[c]) PlanResult.put(moves, --end, action[c]);
+        return c;
+    }
+
+    /** Route from the search start to {@code cell} at its current g. */
+    PlanResult resultTo(int cell, GridGraph graph, int nodesExpanded) {
+        int depth = depthTo(cell);
+        long[] moves = PlanResult.words(depth);
+        int start = packTo(cell, moves, depth);
+        return PlanResult.packed(graph.row(start), graph.col(start), moves, depth, g[cell], nodesExpanded);
+    }
+}
@@ -0,0 +1,401 @@
+package ai.proj;
+
+import java.util.Arrays;
+
+/**
+ * Contraction hierarchy over a grid graph (grid moves and tunnels).
+ *
+ * Preprocessing contracts cells one at a time in order of importance (edge
+ * difference plus number of already-contracted neighbours, with lazy updates).
+ * Contracting v adds a shortcut u-w for each pair of remaining neighbours unless a
+ * witness search finds a path u..w of at most the same cost that avoids v. The
+ * result is stored as an "upward" CSR graph: every edge is kept at its
+ * lower-ranked endpoint. A query is then a bidirectional Dijkstra that only goes
+ * up in rank and settles few nodes. Shortcuts remember their middle cell, so a
+ * route can be unpacked back into the original up/down/left/right/tunnel moves.
+ *
+ * Edge costs are the same in both directions (see GridGraph.predecessors), so one
+ * upward graph serves both the forward and the backward query.
+ * Built once per GridModel, outside any global lock (see GridPreprocessing), and
+ * shared; immutable after construction.
+ */
+public final class ContractionHierarchy {
+
+    // Witness searches give up after settling this many cells (a shortcut is then added)
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+
+    private static final GridPreprocessing<ContractionHierarchy> CACHE =
+            new GridPreprocessing<>(grid -> build(grid.getGraph()));
+
+    private final GridGraph graph;
+    private final int[] rank;
+    // Upward edges of each cell: [upOffsets[v], upOffsets[v + 1])
+    private final int[] upOffsets;
+    private final int[] upTarget;
+    private final int[] upCost;
+    private final int[] upMiddle;  // middle cell of a shortcut, -1 for an original move
+    private final byte[] upAction; // original moves: action from the lower- to the higher-ranked cell
+    private final int shortcuts;
+    private final long preprocessNanos;
+
+    private ContractionHierarchy(GridGraph graph, int[] rank, int[] upOffsets, int[] upTarget, int[] upCost,
+                                 int[] upMiddle, byte[] upAction, int shortcuts, long preprocessNanos) {
+        this.graph = graph;
+        this.rank = rank;
+        this.upOffsets = upOffsets;
+        this.upTarget = upTarget;
+        this.upCost = upCost;
+        this.upMiddle = upMiddle;
+        this.upAction = upAction;
+        this.shortcuts = shortcuts;
+        this.preprocessNanos = preprocessNanos;
+    }
+
+    /** Hierarchy for the grid, building it on first use. */
+    public static ContractionHierarchy forGrid(GridModel grid) {
+        return CACHE.get(grid);
+    }
+
+    /** Hierarchy for the grid if it has already been built, otherwise null (also while it is being built). */
+    public static ContractionHierarchy ifBuilt(GridModel grid) {
+        return CACHE.ifComputed(grid);
+    }
+
+    public static ContractionHierarchy build(GridGraph graph) {
+        long started = System.nanoTime();
+        Builder builder = new Builder(graph);
+        builder.contractAll();
+        return builder.finish(started);
+    }
+
+    // -------------------------
+    //   PREPROCESSING
+    // -------------------------
+
+    private static final class Builder {
+        final GridGraph graph;
+        final int n;
+
+        // Dynamic undirected adjacency; each edge is listed at both endpoints
+        int[][] nbr;
+        int[][] cost;
+        int[][] middle;
+        byte[][] action; // original moves: action from the owning cell to nbr
+        int[] degree;
+
+        final boolean[] contracted;
+        final int[] deletedNeighbours;
+        final int[] rank;
+        int shortcuts;
+
+        // Witness search state, reused with an epoch stamp
+        final int[] witnessDist;
+        final int[] witnessStamp;
+        int witnessEpoch;
+        final IndexedMinHeap witnessHeap;
+
+        // Scratch for the neighbours of the cell being contracted
+        int[] around = new int[8];
+        int[] aroundCost = new int[8];
+
+        Builder(GridGraph graph) {
+            this.graph = graph;
+            this.n = graph.cellCount();
+            this.nbr = new int[n][];
+            this.cost = new int[n][];
+            this.middle = new int[n][];
+            this.action = new byte[n][];
+            this.degree = new int[n];
+            this.contracted = new boolean[n];
+            this.deletedNeighbours = new int[n];
+            this.rank = new int[n];
+            this.witnessDist = new int[n];
+            this.witnessStamp = new int[n];
+            this.witnessHeap = new IndexedMinHeap(n);
+
+            int[] succCell = new int[graph.maxDegree()];
+            int[] succCost = new int[graph.maxDegree()];
+            byte[] succAction = new byte[graph.maxDegree()];
+            for (int v = 0; v < n; v++) {
+                int k = graph.successors(v, succCell, succCost, succAction);
+                nbr[v] = new int[Math.max(k, 1)];
+                cost[v] = new int[Math.max(k, 1)];
+                middle[v] = new int[Math.max(k, 1)];
+                action[v] = new byte[Math.max(k, 1)];
+                for (int i = 0; i < k; i++) {
+                    if (succCell[i] != v) {
+                        addOrLower(v, succCell[i], succCost[i], -1, succAction[i]);
+                    }
+                }
+            }
+        }
+
+        // Add edge v-w to v's list, or lower its cost if it is already there
+        void addOrLower(int v, int w, int c, int mid, byte act) {
+            for (int i = 0; i < degree[v]; i++) {
+                if (nbr[v][i] == w) {
+                    if (c < cost[v][i]) {
+                        cost[v][i] = c;
+                        middle[v][i] = mid;
+                        action[v][i] = act;
+                    }
+                    return;
+                }
+            }
+            if (degree[v] == nbr[v].length) {
+                int size = nbr[v].length * 2;
+                nbr[v] = Arrays.copyOf(nbr[v], size);
+                cost[v] = Arrays.copyOf(cost[v], size);
+                middle[v] = Arrays.copyOf(middle[v], size);
+                action[v] = Arrays.copyOf(action[v], size);
+            }
+            int i = degree[v]++;
+            nbr[v][i] = w;
+            cost[v][i] = c;
+            middle[v][i] = mid;
+            action[v][i] = act;
+        }
+
+        // Collect the uncontracted neighbours of v into around/aroundCost
+        int collectNeighbours(int v) {
+            int k = 0;
+            for (int i = 0; i < degree[v]; i++) {
+                int w = nbr[v][i];
+                if (contracted[w]) continue;
+                if (k == around.length) {
+                    around = Arrays.copyOf(around, k * 2);
+                    aroundCost = Arrays.copyOf(aroundCost, k * 2);
+                }
+                around[k] = w;
+                aroundCost[k++] = cost[v][i];
+            }
+            return k;
+        }
+
+        /**
+         * Count (and, if {@code apply}, add) the shortcuts needed to contract v.
+         */
+        int contract(int v, boolean apply) {
+            int k = collectNeighbours(v);
+            int needed = 0;
+            for (int i = 0; i < k; i++) {
+                int u = around[i];
+                int limit = 0;
+                for (int j = i + 1; j < k; j++) {
+                    limit = Math.max(limit, aroundCost[i] + aroundCost[j]);
+                }
+                if (limit == 0) continue;
+                witnessSearch(u, v, limit);
+                for (int j = i + 1; j < k; j++) {
+                    int w = around[j];
+                    int via = aroundCost[i] + aroundCost[j];
+                    int witness = witnessStamp[w] == witnessEpoch ? witnessDist[w] : Integer.MAX_VALUE;
+                    if (witness <= via) continue;
+                    needed++;
+                    if (apply) {
+                        addOrLower(u, w, via, v, (byte) 0);
+                        addOrLower(w, u, via, v, (byte) 0);
+                    }
+                }
+            }
+            if (apply) {
+                shortcuts += needed;
+            }
+            return needed - k;
+        }
+
+        // Bounded Dijkstra from u over uncontracted cells, never entering 'avoid'
+        void witnessSearch(int u, int avoid, int limit) {
+            if (++witnessEpoch == Integer.MAX_VALUE) {
+                Arrays.fill(witnessStamp, 0);
+                witnessEpoch = 1;
+            }
+            witnessHeap.clear();
+            witnessStamp[u] = witnessEpoch;
+            witnessDist[u] = 0;
+            witnessHeap.insert(u, 0);
+            int settled = 0;
+            while (!witnessHeap.isEmpty() && settled < WITNESS_SETTLE_LIMIT) {
+                if (witnessHeap.peekKey() > limit) break;
+                int x = witnessHeap.poll();
+                settled++;
+                int dx = witnessDist[x];
+                for (int i = 0; i < degree[x]; i++) {
+                    int y = nbr[x][i];
+                    if (y == avoid || contracted[y]) continue;
+                    int d = dx + cost[x][i];
+                    if (d > limit) continue;
+                    if (witnessStamp[y] != witnessEpoch || d < witnessDist[y]) {
+                        witnessStamp[y] = witnessEpoch;
+                        witnessDist[y] = d;
+                        witnessHeap.insertOrDecrease(y, d);
+                    }
+                }
+            }
+        }
+
+        long priority(int v) {
+            // Offset keeps negative edge differences valid as heap keys
+            return (long) contract(v, false) + deletedNeighbours[v] + Integer.MAX_VALUE;
+        }
+
+        void contractAll() {
+            IndexedMinHeap order = new IndexedMinHeap(n);
+            for (int v = 0; v < n; v++) {
+                order.insert(v, priority(v));
+            }
+            int next = 0;
+            while (!order.isEmpty()) {
+                int v = order.poll();
+                // Lazy update: if v's priority got worse, put it back and try the new minimum
+                long p = priority(v);
+                if (!order.isEmpty() && p > order.peekKey()) {
+                    order.insert(v, p);
+                    continue;
+                }
+
+                contract(v, true);
+                contracted[v] = true;
+                rank[v] = next++;
+
+                // Copy the neighbours first: priority(u) reuses 'around'
+                int[] touched = Arrays.copyOf(around, collectNeighbours(v));
+                for (int u : touched) {
+                    deletedNeighbours[u]++;
+                }
+                for (int u : touched) {
+                    long updated = priority(u);
+                    if (updated < order.key(u)) {
+                        order.decreaseKey(u, updated);
+                    }
+                }
+            }
+        }
+
+        ContractionHierarchy finish(long started) {
+            int[] upOffsets = new int[n + 1];
+            for (int v = 0; v < n; v++) {
+                int up = 0;
+                for (int i = 0; i < degree[v]; i++) {
+                    if (rank[nbr[v][i]] > rank[v]) up++;
+                }
+                upOffsets[v + 1] = upOffsets[v] + up;
+            }
+            int m = upOffsets[n];
+            int[] upTarget = new int[m];
+            int[] upCost = new int[m];
+            int[] upMiddle = new int[m];
+            byte[] upAction = new byte[m];
+            for (int v = 0; v < n; v++) {
+                int e = upOffsets[v];
+                for (int i = 0; i < degree[v]; i++) {
+                    if (rank[nbr[v][i]] > rank[v]) {
+                        upTarget[e] = nbr[v][i];
+                        upCost[e] = cost[v][i];
+                        upMiddle[e] = middle[v][i];
+                        upAction[e] = action[v][i];
+                        e++;
+                    }
+                }
+                // The dynamic lists are no longer needed
+                nbr[v] = null;
+                cost[v] = null;
+                middle[v] = null;
+                action[v] = null;
+            }
+            return new ContractionHierarchy(graph, rank, upOffsets, upTarget, upCost, upMiddle, upAction,
+                    shortcuts, System.nanoTime() - started);
+        }
+    }
+
+    // -------------------------
+    //   QUERY SUPPORT
+    // -------------------------
+
+    public GridGraph getGraph() { return graph; }
+    int firstUp(int cell) { return upOffsets[cell]; }
+    int endUp(int cell) { return upOffsets[cell + 1]; }
+    int upTarget(int edge) { return upTarget[edge]; }
+    int upCost(int edge) { return upCost[edge]; }
+
+    // Edge between two adjacent cells of the hierarchy, stored at the lower-ranked one
+    private int edgeBetween(int a, int b) {
+        int low = rank[a] < rank[b] ? a : b;
+        int high = low == a ? b : a;
+        for (int e = upOffsets[low]; e < upOffsets[low + 1]; e++) {
+            if (upTarget[e] == high) return e;
+        }
+        throw new IllegalStateException("No hierarchy edge between " + a + " and " + b);
+    }
+
+    /**
+     * Append the original moves of the hierarchy path {@code cells[0..count)} to
+     * {@code out}, expanding shortcuts through their middle cells.
+     *
+     * @return the new length of out
+     */
+    int unpack(int[] cells, int count, ActionBuffer out) {
+        // Explicit stack of (from, to) hops, so deep shortcut nesting cannot overflow the call stack
+        int[] stack = new int[Math.max(64, 2 * count)];
+        int top = 0;
+        for (int h = count - 1; h > 0; h--) {
+            stack[top++] = cells[h - 1];
+            stack[top++] = cells[h];
+        }
+        while (top > 0) {
+            int to = stack[--top];
+            int from = stack[--top];
+            int e = edgeBetween(from, to);
+            int mid = upMiddle[e];
+            if (mid < 0) {
+                int act = upAction[e];
+                // Stored action goes from the lower-ranked endpoint upwards
+                out.add(rank[from] < rank[to] ? act : GridGraph.opposite(act));
+            } else {
+                if (top + 4 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+                stack[top++] = mid;
+                stack[top++] = to;
+                stack[top++] = from;
+                stack[top++] = mid;
+            }
+        }
+        return out.size();
+    }
+
+    /** Growable byte list of action codes. */
+    static final class ActionBuffer {
+        private byte[] codes = new byte[64];
+        private int size;
+
+        void add(int action) {
+            if (size == codes.length) codes = Arrays.copyOf(codes, size * 2);
+            codes[size++] = (byte) action;
+        }
+
+        int size() { return size; }
+        void clear() { size = 0; }
+        byte[] toArray() { return Arrays.copyOf(codes, size); }
+    }
+
+    // -------------------------
+    //   STATISTICS
+    // -------------------------
+
+    public int getShortcutCount() { return shortcuts; }
+    public int getEdgeCount() { return upTarget.length; }
+    public long getPreprocessNanos() { return preprocessNanos; }
+
+    /** Approximate heap footprint of the query structure, in bytes. */
+    public long estimatedBytes() {
+        long n = rank.length;
+        long m = upTarget.length;
+        return 4 * n              // rank
+             + 4 * (n + 1)        // upOffsets
+             + (4 + 4 + 4 + 1) * m; // target, cost, middle, action
+    }
+
+    public String describe() {
+        return String.format("CH: cells=%d, upEdges=%d, shortcuts=%d, preprocessMs=%.3f, memoryKB=%.1f",
+                rank.length, upTarget.length, shortcuts, preprocessNanos / 1_000_000.0, estimatedBytes() / 1024.0);
+    }
+}
@@ -0,0 +1,126 @@
+package ai.proj;
+
+import java.util.Arrays;
+
+/**
+ * Shortest-path query on a ContractionHierarchy.
+ *
+ * A forward search from the store and a backward search from the destination
+ * both only follow edges to higher-ranked cells. Every cell reached from both
+ * sides gives a candidate cost (mu); a side stops once its minimum key reaches
+ * mu. The hierarchy is built on first use for a grid and then reused by every
+ * later query on the same GridModel, so it pays off for repeated planning on a
+ * static grid. nodesExpanded counts the cells settled by the two upward searches.
+ */
+public class ContractionHierarchySearch extends GenericSearch {
+
+    private ContractionHierarchy hierarchy;
+    private IndexedMinHeap forwardFrontier;
+    private IndexedMinHeap backwardFrontier;
+    private CellLabels forward;
+    private CellLabels backward;
+    private int[] route = new int[64];
+    private final ContractionHierarchy.ActionBuffer moves = new ContractionHierarchy.ActionBuffer();
+
+    private int meeting;
+    private long bestCost;
+
+    @Override
+    public void load(GridModel grid) {
+        super.load(grid);
+        hierarchy = ContractionHierarchy.forGrid(grid);
+    }
+
+    @Override
+    public PlanResult solve(String goalState) {
+        int goal = parseCell(goalState);
+        int start = startCell();
+
+        int nodesExpanded = upwardSearch(start, goal);
+        if (meeting < 0) {
+            return PlanResult.failure(nodesExpanded);
+        }
+
+        // Hierarchy path start..meeting..goal, then expanded into original moves
+        int count = 0;
+        for (int c = meeting; c >= 0; c = forward.parent[c]) count++;
+        int backwardHops = 0;
+        for (int c = meeting; c != goal; c = backward.parent[c]) backwardHops++;
+        if (route.length < count + backwardHops) {
+            route = Arrays.copyOf(route, count + backwardHops);
+        }
+        int i = count;
+        for (int c = meeting; c >= 0; c = forward.parent[c]) route[--i] = c;
+        for (int c = meeting; c != goal; c = backward.parent[c]) route[count++] = backward.parent[c];
+
+        moves.clear();
+        hierarchy.unpack(route, count, moves);
+        return PlanResult.of(graph.row(start), graph.col(start), moves.toArray(), (int) bestCost, nodesExpanded);
+    }
+
+    private int upwardSearch(int start, int goal) {
+        if (forward == null || forward.capacity() != graph.cellCount()) {
+            forwardFrontier = new IndexedMinHeap(graph.cellCount());
+            backwardFrontier = new IndexedMinHeap(graph.cellCount());
+            forward = new CellLabels(graph.cellCount());
+            backward = new CellLabels(graph.cellCount());
+        }
+        forwardFrontier.clear();
+        backwardFrontier.clear();
+        forward.reset();
+        backward.reset();
+        meeting = -1;
+        bestCost = Long.MAX_VALUE;
+        int nodesExpanded = 0;
+
+        forward.set(start, 0, -1, (byte) 0);
+        forwardFrontier.insert(start, 0);
+        backward.set(goal, 0, -1, (byte) 0);
+        backwardFrontier.insert(goal, 0);
+        if (start == goal) {
+            meeting = start;
+            bestCost = 0;
+        }
+
+        while (true) {
+            boolean forwardOpen = !forwardFrontier.isEmpty() && forwardFrontier.peekKey() < bestCost;
+            boolean backwardOpen = !backwardFrontier.isEmpty() && backwardFrontier.peekKey() < bestCost;
+            if (!forwardOpen && !backwardOpen) break;
+
+            if (forwardOpen && (!backwardOpen || forwardFrontier.peekKey() <= backwardFrontier.peekKey())) {
+                settle(forwardFrontier, forward, backward);
+            } else {
+                settle(backwardFrontier, backward, forward);
+            }
+            nodesExpanded++;
+        }
+
+        return nodesExpanded;
+    }
+
+    // Settle the minimum of one side and relax its upward edges
+    private void settle(IndexedMinHeap frontier, CellLabels side, CellLabels other) {
+        int current = frontier.poll();
+        side.close(current);
+        int g = side.g[current];
+        for (int e = hierarchy.firstUp(current), end = hierarchy.endUp(current); e < end; e++) {
+            int next = hierarchy.upTarget(e);
+            if (side.isClosed(next)) continue;
+            int newCost = g + hierarchy.upCost(e);
+            if (newCost < side.bestG(next)) {
+                side.set(next, newCost, current, (byte) 0);
+                frontier.insertOrDecrease(next, newCost);
+                if (other.isReached(next)) {
+                    offer(next, (long) newCost + other.g[next]);
+                }
+            }
+        }
+    }
+
+    private void offer(int cell, long cost) {
+        if (cost < bestCost) {
+            bestCost = cost;
+            meeting = cell;
+        }
+    }
+}
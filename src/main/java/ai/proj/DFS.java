@@ -4,69 +4,45 @@ import java.util.*;
 
 public class DFS extends GenericSearch {
 
-    private static class Node {
-        int x, y;
-        List<String> actions;  // List of canonical action names
-        int cost;
-
-        Node(int x, int y, List<String> actions, int cost) {
-            this.x = x;
-            this.y = y;
-            this.actions = new ArrayList<>(actions);
-            this.cost = cost;
-        }
-    }
-
     @Override
-    public String search(String goalState) {
+    public PlanResult solve(String goalState) {
         // goalState format = "x,y" coordinates of the goal
-        String[] split = goalState.split(",");
-        int goalX = Integer.parseInt(split[0]);
-        int goalY = Integer.parseInt(split[1]);
+        int goal = parseCell(goalState);
 
         // Single-store search: start coordinates set via GenericSearch.setStart
-        int startX = (startRow >= 0 ? startRow : stores[0][0]);
-        int startY = (startCol >= 0 ? startCol : stores[0][1]);
+        int start = startCell();
 
-            Stack<Node> stack = new Stack<>();
-            HashSet<String> visited = new HashSet<>();
+            Deque<SearchNode> stack = new ArrayDeque<>();
+            BitSet visited = new BitSet(graph.cellCount());
 
-            stack.push(new Node(startX, startY, new ArrayList<>(), 0));
+            stack.push(new SearchNode(start, 0, null, (byte) 0));
 
         int nodesExpanded = 0;
 
             while (!stack.isEmpty()) {
-                Node curr = stack.pop();
+                SearchNode curr = stack.pop();
                 nodesExpanded++;
 
-                String key = curr.x + "," + curr.y;
-
-                if (visited.contains(key))
+                if (visited.get(curr.cell))
                     continue;
 
-                visited.add(key);
+                visited.set(curr.cell);
 
                 // Goal check
-                if (curr.x == goalX && curr.y == goalY) {
-                    String plan = String.join(",", curr.actions);
-                    return startX + "," + startY + ";" + plan + ";" + curr.cost + ";" + nodesExpanded;
+                if (curr.cell == goal) {
+                    return resultTo(curr, nodesExpanded);
                 }
 
-                // Expand DFS neighbors using generic successor generator
-                String currentState = curr.x + "," + curr.y;
-                List<Successor> successors = getSuccessors(currentState);
+                // Expand DFS neighbors from the precomputed grid graph
+                int n = graph.successors(curr.cell, succCell, succCost, succAction);
                 
                 // Add successors in reverse order to maintain tieBreakerOrder when popping from stack
-                for (int i = successors.size() - 1; i >= 0; i--) {
-                    Successor succ = successors.get(i);
-                    String newKey = succ.getRow() + "," + succ.getCol();
-                    if (!visited.contains(newKey)) {
-                        List<String> newActions = new ArrayList<>(curr.actions);
-                        newActions.add(succ.action);
-                        stack.push(new Node(succ.getRow(), succ.getCol(), newActions, curr.cost + succ.stepCost));
+                for (int i = n - 1; i >= 0; i--) {
+                    if (!visited.get(succCell[i])) {
+                        stack.push(new SearchNode(succCell[i], curr.cost + succCost[i], curr, succAction[i]));
                     }
                 }
             }
-        return "FAIL;0;" + nodesExpanded;
+        return PlanResult.failure(nodesExpanded);
     }
 }
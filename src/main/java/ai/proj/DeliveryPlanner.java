@@ -1,9 +1,21 @@
 package ai.proj;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Arrays;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadMXBean;
 
@@ -14,80 +26,161 @@ import java.lang.management.ThreadMXBean;
  * This variant includes ONE consistent performance measurement wrapper for
  * plan(String strategyName) using:
  *  - JVM warm-up
- *  - forced GC before measurement
  *  - wall-clock time (nanoTime)
  *  - per-thread CPU time (ThreadMXBean)
- *  - RAM delta using Runtime totalMemory/freeMemory
+ *  - bytes allocated by the planning thread
+ * It is a quick check from the API; numbers to accept or reject a change come
+ * from the JMH module in benchmarks/.
  *
  * Note: other planning methods (plan(GenericSearch), planForStore, planForGoal)
  * are left uninstrumented to keep measurements focused on plan() as requested.
+ *
+ * Thread safety: the grid is held as one immutable GridSnapshot behind a volatile
+ * field. Planning methods read it once and keep all search state in locals, so
+ * any number of them can run concurrently without locking. Methods that replace
+ * the grid or touch the tracked routes are synchronized and publish a new
+ * snapshot instead of modifying the current one.
  */
 public class DeliveryPlanner {
 
-    private GridGenerator generator;
-    private DeliverySearch searcher;
+    private final GridGenerator generator;
+
+    // Current grid; replaced (never modified) by generateGrid() and applyTrafficChanges()
+    private volatile GridSnapshot snapshot;
+
+    // Single-store routes by (grid version, store, destination, strategy)
+    private final RouteCache routeCache = new RouteCache();
+
+    // Routes repaired by LPA* on every traffic change, keyed by start << 32 | goal
+    private final Map<Long, IncrementalRoute> trackedRoutes = new LinkedHashMap<>();
+    private GridModel trackedRoutesGrid;
 
-    private String initialState;
-    private String trafficString;
-    private int[][] stores;
-    private int[][] destinations;
-    private int[][] tunnels;
-    private int numStores;
-    private int numDestinations;
-    private int rows;
-    private int cols;
+    // Most searches one planBatch task runs with its search context before the rest of
+    // that store's goals go to another task
+    private static final int BATCH_CHUNK = 32;
+
+    // Executor used by planParallel(String); the common ForkJoinPool unless configured
+    private volatile ExecutorService parallelExecutor = ForkJoinPool.commonPool();
 
     public DeliveryPlanner() {
         this.generator = new GridGenerator();
     }
 
+    /** Planner that starts on an existing snapshot, e.g. one shared with another session. */
+    public DeliveryPlanner(GridSnapshot snapshot) {
+        this();
+        this.snapshot = snapshot;
+    }
+
     // Getters to expose current grid and metadata (no regeneration)
-    public String getInitialState() { return this.initialState; }
-    public String getTrafficString() { return this.trafficString; }
-    public int[][] getStores() { return this.stores; }
-    public int[][] getDestinations() { return this.destinations; }
-    public int[][] getTunnels() { return this.tunnels; }
-    public int getNumStores() { return this.numStores; }
-    public int getNumDestinations() { return this.numDestinations; }
-    public int getRows() { return this.rows; }
-    public int getCols() { return this.cols; }
+    public GridSnapshot getSnapshot() { return this.snapshot; }
+    public String getInitialState() { GridSnapshot s = this.snapshot; return s == null ? null : s.getInitialState(); }
+    public String getTrafficString() { GridSnapshot s = this.snapshot; return s == null ? null : s.getTrafficString(); }
+    public GridModel getGrid() { GridSnapshot s = this.snapshot; return s == null ? null : s.getGrid(); }
+    public int[][] getStores() { GridModel g = getGrid(); return g == null ? null : g.getStores(); }
+    public int[][] getDestinations() { GridModel g = getGrid(); return g == null ? null : g.getDestinations(); }
+    public int[][] getTunnels() { GridModel g = getGrid(); return g == null ? null : g.getTunnels(); }
+    public int getNumStores() { GridModel g = getGrid(); return g == null ? 0 : g.getNumStores(); }
+    public int getNumDestinations() { GridModel g = getGrid(); return g == null ? 0 : g.getNumDestinations(); }
+    public int getRows() { GridModel g = getGrid(); return g == null ? 0 : g.getRows(); }
+    public int getCols() { GridModel g = getGrid(); return g == null ? 0 : g.getCols(); }
+    public RouteCache getRouteCache() { return this.routeCache; }
+
+    public void setParallelExecutor(ExecutorService executor) {
+        this.parallelExecutor = Objects.requireNonNull(executor);
+    }
 
     // Optionally set the pre-generated grid data from GridGenerator
-    public void loadFromGenerator() {
-        if (this.generator != null) {
-            this.initialState = generator.getInitialState();
-            this.trafficString = generator.getTrafficString();
-            this.stores = generator.getStores();
-            this.destinations = generator.getDestinations();
-            this.tunnels = generator.getTunnels();
-            this.rows = generator.getRows();
-            this.cols = generator.getCols();
-            this.numStores = (this.stores != null) ? this.stores.length : 0;
-            this.numDestinations = (this.destinations != null) ? this.destinations.length : 0;
+    public synchronized void loadFromGenerator() {
+        GridModel generated = generator.toGridModel();
+        if (generated == null) {
+            return;
+        }
+        GridSnapshot loaded = GridSnapshot.of(generated);
+        this.snapshot = loaded;
+        // Routes of the previous grid can no longer be hit; release them
+        this.routeCache.retainVersion(loaded.getGrid().getVersion());
+    }
+
+    // Current snapshot, loading the generator's grid if none is set yet; null if there is none
+    private GridSnapshot snapshot() {
+        GridSnapshot current = this.snapshot;
+        if (current == null) {
+            loadFromGenerator();
+            current = this.snapshot;
         }
+        return current;
     }
 
     // Generate a grid using default settings
-    public void generateGrid() {
+    public synchronized void generateGrid() {
         generator.GenGrid();
         loadFromGenerator();
     }
 
+    // Generate a reproducible grid of any size (see GridSpec)
+    public synchronized void generateGrid(GridSpec spec) {
+        generator.GenGrid(spec);
+        loadFromGenerator();
+    }
+
+    /**
+     * Replace the grid with one from a binary grid file (see GridFile). The traffic
+     * is memory-mapped, so even very large grids open almost at once.
+     */
+    public synchronized String loadGridFile(Path file) {
+        GridModel loaded;
+        try {
+            loaded = GridFile.load(file);
+        } catch (IOException | IllegalArgumentException e) {
+            return "FAIL: " + e.getMessage();
+        }
+        this.snapshot = GridSnapshot.of(loaded);
+        this.routeCache.retainVersion(loaded.getVersion());
+        return "SUCCESS";
+    }
+
+    /** Write the current grid to a binary grid file (see GridFile). */
+    public String saveGridFile(Path file) {
+        GridSnapshot snapshot = snapshot();
+        if (snapshot == null) {
+            return "FAIL: Grid not initialized. Set grid via GridGenerator before planning.";
+        }
+        try {
+            GridFile.write(snapshot.getGrid(), file);
+        } catch (IOException e) {
+            return "FAIL: " + e.getMessage();
+        }
+        return "SUCCESS";
+    }
+
     // Regenerate a new grid (fresh instance)
-    public void regenerateGrid() {
+    public synchronized void regenerateGrid() {
         generateGrid();
     }
 
-    // Pick a search algorithm based on input string
-    private GenericSearch chooseStrategy(String strategy) {
+    // Pick a search algorithm based on input string (also used by the JMH benchmarks)
+    static GenericSearch chooseStrategy(String strategy) {
         return switch (strategy.toUpperCase()) {
             case "BFS" -> new BFS();
             case "DFS" -> new DFS();
             case "UCS" -> new UniformCost();
+            case "UCSDIAL" -> new DialUniformCost();
+            case "BIDIRECTIONAL" -> new Bidirectional();
+            case "CH" -> new ContractionHierarchySearch();
             case "ASTAR1" -> new AStar(1);
             case "ASTAR2" -> new AStar(2);
+            case "ASTAR3" -> new AStar(3);
+            case "ASTAR4" -> new AStar(4);
+            case "IDASTAR" -> new IDAStar(3);
+            case "IDASTAR1" -> new IDAStar(1);
+            case "IDASTAR2" -> new IDAStar(2);
+            case "IDASTAR3" -> new IDAStar(3);
+            case "IDASTAR4" -> new IDAStar(4);
             case "GREEDY1" -> new Greedy(1);
             case "GREEDY2" -> new Greedy(2);
+            case "GREEDY3" -> new Greedy(3);
+            case "GREEDY4" -> new Greedy(4);
             case "ITERATIVEDEEPENING" -> new IterativeDeepening();
             default -> null;
         };
@@ -107,44 +200,59 @@ public class DeliveryPlanner {
     /**
      * Main planning function: computes paths using the already-generated grid.
      * No instrumentation here; use benchmark() for CPU/RAM measurement.
+     * Routes already planned on this grid with the same strategy come from the route cache.
      */
     public String plan(GenericSearch strategy) {
+        return plan(strategy, this.routeCache);
+    }
+
+    // plan(strategy) reading and filling the given cache (null = search every pair)
+    private String plan(GenericSearch strategy, RouteCache cache) {
+        List<PlanResult> fullPlan = new ArrayList<>();
+        String status = planEach(strategy, cache, fullPlan::add);
+        return "SUCCESS".equals(status) ? render(fullPlan) : status;
+    }
+
+    /**
+     * Streaming variant of plan(GenericSearch): each destination's best route is
+     * handed to {@code onRoute} as soon as it is chosen, in destination order,
+     * instead of being collected into one response. Nothing is retained once it
+     * has been handed over. An exception thrown by {@code onRoute} (e.g. the client
+     * went away) stops planning and propagates.
+     *
+     * @return "SUCCESS", "FAIL" if a destination is unreachable (routes before it
+     *         have already been delivered), or a "FAIL: ..." / "Invalid strategy" message
+     */
+    public String planStreaming(GenericSearch strategy, Consumer<? super PlanResult> onRoute) {
+        return planEach(strategy, this.routeCache, onRoute);
+    }
+
+    private String planEach(GenericSearch strategy, RouteCache cache, Consumer<? super PlanResult> onRoute) {
         if (strategy == null) {
             return "Invalid strategy: null";
         }
 
-        // Ensure we use already-generated grid data
-        if (this.initialState == null || this.trafficString == null || this.stores == null || this.destinations == null) {
-            loadFromGenerator();
-        }
-
-        if (this.initialState == null || this.trafficString == null || this.stores == null || this.destinations == null) {
+        GridSnapshot snapshot = snapshot();
+        if (snapshot == null) {
             return "FAIL: Grid not initialized. Set grid via GridGenerator before planning.";
         }
+        GridModel grid = snapshot.getGrid();
+        int[][] stores = grid.getStores();
+        int[][] destinations = grid.getDestinations();
 
-        this.numStores = stores.length;
-        this.numDestinations = destinations.length;
-
-        this.searcher = new DeliverySearch(strategy);
+        DeliverySearch searcher = new DeliverySearch(strategy);
 
-        List<String> fullPlan = new ArrayList<>();
-
-        for (int dstIndex = 0; dstIndex < numDestinations; dstIndex++) {
+        for (int dstIndex = 0; dstIndex < destinations.length; dstIndex++) {
             int dstR = destinations[dstIndex][0];
             int dstC = destinations[dstIndex][1];
-            String goalState = dstR + "," + dstC;
 
-            String bestPath = null;
-            int bestCost = Integer.MAX_VALUE;
+            PlanResult bestPath = null;
 
             // Evaluate each store by running the strategy from that store
-            for (int s = 0; s < numStores; s++) {
-                String storeState = stores[s][0] + "," + stores[s][1];
-                String result = searcher.path(initialState, trafficString, storeState, goalState);
-                if (result == null || result.startsWith("FAIL")) continue;
-                int cost = extractResultCost(result);
-                if (cost < bestCost) {
-                    bestCost = cost;
+            for (int s = 0; s < stores.length; s++) {
+                PlanResult result = solveCached(cache, searcher, grid, stores[s], dstR, dstC);
+                if (!result.isSuccess()) continue;
+                if (bestPath == null || result.getCost() < bestPath.getCost()) {
                     bestPath = result;
                 }
             }
@@ -153,14 +261,310 @@ public class DeliveryPlanner {
                 return "FAIL";  // no store can reach this destination
             }
 
-            fullPlan.add(bestPath);
+            onRoute.accept(bestPath);
         }
 
-        return "SUCCESS\n" + String.join("\n", fullPlan);
+        return "SUCCESS";
+    }
+
+    /**
+     * Parallel variant of plan(String): every (destination, store) search runs as
+     * its own task on the configured executor.
+     */
+    public String planParallel(String strategyName) {
+        return planParallel(strategyName, this.parallelExecutor);
     }
 
     /**
-     * Benchmark a strategy by running plan() multiple times and computing average CPU/RAM/time.
+     * Parallel variant of plan(String) on the given executor (e.g. a ForkJoinPool or
+     * Executors.newVirtualThreadPerTaskExecutor()).
+     *
+     * At most one task per available core is submitted, however many threads the
+     * executor would start (a virtual thread per task would otherwise give every
+     * search its own per-cell buffers). Each task owns one DeliverySearch with its
+     * own strategy instance and takes (destination, store) searches from a shared
+     * counter until none are left, so no two tasks share mutable search state while
+     * all of them read the same GridModel. Results are stored by destination and
+     * store index, so the output is identical to plan() whatever order the searches
+     * finish in.
+     */
+    public String planParallel(String strategyName, ExecutorService executor) {
+        if (chooseStrategy(strategyName) == null) {
+            return "Invalid strategy: " + strategyName;
+        }
+        GridSnapshot snapshot = snapshot();
+        if (snapshot == null) {
+            return "FAIL: Grid not initialized. Set grid via GridGenerator before planning.";
+        }
+        // All tasks see this snapshot even if the grid is regenerated meanwhile
+        GridModel grid = snapshot.getGrid();
+        int[][] stores = grid.getStores();
+        int[][] destinations = grid.getDestinations();
+
+        // Search i is destination i / stores.length from store i % stores.length
+        int searches = destinations.length * stores.length;
+        PlanResult[] found = new PlanResult[searches];
+        AtomicInteger next = new AtomicInteger();
+        int workers = Math.min(searches, Runtime.getRuntime().availableProcessors());
+        List<Future<?>> results = new ArrayList<>(workers);
+        for (int w = 0; w < workers; w++) {
+            results.add(executor.submit(() -> {
+                DeliverySearch context = new DeliverySearch(chooseStrategy(strategyName));
+                for (int i = next.getAndIncrement(); i < searches; i = next.getAndIncrement()) {
+                    int[] destination = destinations[i / stores.length];
+                    found[i] = solveCached(routeCache, context, grid, stores[i % stores.length],
+                                           destination[0], destination[1]);
+                }
+            }));
+        }
+
+        List<PlanResult> fullPlan = new ArrayList<>();
+        try {
+            for (Future<?> result : results) {
+                result.get(); // also publishes the workers' writes to found
+            }
+            for (int dstIndex = 0; dstIndex < destinations.length; dstIndex++) {
+                PlanResult bestPath = null;
+                for (int s = 0; s < stores.length; s++) {
+                    PlanResult result = found[dstIndex * stores.length + s];
+                    if (!result.isSuccess()) continue;
+                    if (bestPath == null || result.getCost() < bestPath.getCost()) {
+                        bestPath = result;
+                    }
+                }
+                if (bestPath == null) {
+                    return "FAIL";  // no store can reach this destination
+                }
+                fullPlan.add(bestPath);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            results.forEach(f -> f.cancel(true));
+            return "FAIL: Planning interrupted";
+        } catch (ExecutionException e) {
+            results.forEach(f -> f.cancel(true));
+            return "FAIL: " + e.getCause();
+        }
+
+        return render(fullPlan);
+    }
+
+    /**
+     * Plan all destinations with one multi-source search per destination, seeded
+     * from every store at once (see MultiSourceSearch), instead of one search per
+     * store. Picks the same store and cost as plan(strategy) with UCS.
+     */
+    public String planMultiSource() {
+        GridSnapshot snapshot = snapshot();
+        if (snapshot == null) {
+            return "FAIL: Grid not initialized. Set grid via GridGenerator before planning.";
+        }
+        GridModel grid = snapshot.getGrid();
+        int[][] stores = grid.getStores();
+        int[][] destinations = grid.getDestinations();
+
+        MultiSourceSearch search = new MultiSourceSearch();
+        search.load(grid);
+
+        List<PlanResult> fullPlan = new ArrayList<>();
+        for (int dstIndex = 0; dstIndex < destinations.length; dstIndex++) {
+            String goalState = destinations[dstIndex][0] + "," + destinations[dstIndex][1];
+            PlanResult result = search.solve(goalState);
+            if (!result.isSuccess()) {
+                return "FAIL";  // no store can reach this destination
+            }
+            fullPlan.add(result);
+        }
+
+        return render(fullPlan);
+    }
+
+    /**
+     * Plan for one goal "x,y" with a single multi-source search over all stores.
+     */
+    public String planForGoalMultiSource(String goalXY) {
+        GridSnapshot snapshot = snapshot();
+        if (snapshot == null) {
+            return "FAIL: Grid not initialized. Set grid via GridGenerator before planning.";
+        }
+        MultiSourceSearch search = new MultiSourceSearch();
+        search.load(snapshot.getGrid());
+        PlanResult result = search.solve(goalXY);
+        return result.isSuccess() ? result.toString() : "FAIL";
+    }
+
+    /**
+     * Plan all destinations from one full shortest-path tree per store: S searches
+     * instead of S x D, after which each destination is a min over the S dist arrays
+     * plus a parent-pointer walk. Trees are kept until the grid changes, so later
+     * calls on the same grid run no search at all.
+     */
+    public String planShortestPathTrees() {
+        GridSnapshot snapshot = snapshot();
+        if (snapshot == null) {
+            return "FAIL: Grid not initialized. Set grid via GridGenerator before planning.";
+        }
+        GridGraph graph = snapshot.getGrid().getGraph();
+        int[][] destinations = snapshot.getGrid().getDestinations();
+
+        ShortestPathTree[] trees = snapshot.storeTrees();
+        List<PlanResult> fullPlan = new ArrayList<>();
+        for (int dstIndex = 0; dstIndex < destinations.length; dstIndex++) {
+            PlanResult result = routeFromTrees(trees, graph.id(destinations[dstIndex][0], destinations[dstIndex][1]));
+            if (result == null) {
+                return "FAIL";  // no store can reach this destination
+            }
+            fullPlan.add(result);
+        }
+
+        return render(fullPlan);
+    }
+
+    /**
+     * Plan for one goal "x,y" using the per-store shortest-path trees.
+     */
+    public String planForGoalShortestPathTrees(String goalXY) {
+        GridSnapshot snapshot = snapshot();
+        if (snapshot == null) {
+            return "FAIL: Grid not initialized. Set grid via GridGenerator before planning.";
+        }
+        int goal;
+        try {
+            goal = parseCell(snapshot.getGrid(), goalXY);
+        } catch (IllegalArgumentException e) {
+            return "FAIL: " + e.getMessage();
+        }
+        PlanResult result = routeFromTrees(snapshot.storeTrees(), goal);
+        return result == null ? "FAIL" : result.toString();
+    }
+
+    /**
+     * Build (or fetch) the contraction hierarchy of the current grid ahead of the
+     * first CH query and report its preprocessing time, shortcut count and size.
+     */
+    public String preprocessContractionHierarchy() {
+        GridSnapshot snapshot = snapshot();
+        if (snapshot == null) {
+            return "FAIL: Grid not initialized. Set grid via GridGenerator before planning.";
+        }
+        return ContractionHierarchy.forGrid(snapshot.getGrid()).describe();
+    }
+
+    /**
+     * Keep the route from store "x,y" to goal "x,y" up to date across traffic
+     * changes (see applyTrafficChanges). Returns the route's current plan line.
+     */
+    public synchronized String trackRoute(String storeXY, String goalXY) {
+        GridSnapshot snapshot = snapshot();
+        if (snapshot == null) {
+            return "FAIL: Grid not initialized. Set grid via GridGenerator before planning.";
+        }
+        GridModel grid = snapshot.getGrid();
+        GridGraph graph = grid.getGraph();
+        int start;
+        int goal;
+        try {
+            start = parseCell(grid, storeXY);
+            goal = parseCell(grid, goalXY);
+        } catch (IllegalArgumentException e) {
+            return "FAIL: " + e.getMessage();
+        }
+        Map<Long, IncrementalRoute> routes = trackedRoutes(grid);
+        IncrementalRoute route = routes.get(((long) start << 32) | goal);
+        if (route == null) {
+            route = new IncrementalRoute(graph, start, goal);
+            routes.put(((long) start << 32) | goal, route);
+        }
+        return route.getRoute().toString();
+    }
+
+    /** Current plan lines of all tracked routes, in the order they were tracked. */
+    public synchronized String getTrackedRoutes() {
+        GridSnapshot snapshot = this.snapshot;
+        List<PlanResult> results = new ArrayList<>();
+        for (IncrementalRoute route : trackedRoutes(snapshot == null ? null : snapshot.getGrid()).values()) {
+            results.add(route.getRoute());
+        }
+        return render(results);
+    }
+
+    public synchronized void clearTrackedRoutes() {
+        this.trackedRoutes.clear();
+    }
+
+    /**
+     * Change traffic on some edges of the current grid, given in the trafficString
+     * format ("SrcX,SrcY,DstX,DstY,Traffic;..." with 0 = blocked). The grid gets a
+     * new version, so cached routes and per-grid preprocessing are recomputed on
+     * demand, while tracked routes are repaired incrementally. Returns the tracked
+     * routes; their nodesExpanded is the work done by the repair alone.
+     */
+    public synchronized String applyTrafficChanges(String changes) {
+        GridSnapshot snapshot = snapshot();
+        if (snapshot == null) {
+            return "FAIL: Grid not initialized. Set grid via GridGenerator before planning.";
+        }
+        int[][] parsed;
+        GridSnapshot next;
+        try {
+            parsed = GridModel.parseTrafficChanges(changes);
+            next = snapshot.withTraffic(parsed);
+        } catch (IllegalArgumentException e) {
+            return "FAIL: " + e.getMessage();
+        }
+
+        Map<Long, IncrementalRoute> routes = trackedRoutes(snapshot.getGrid());
+        GridModel updated = next.getGrid();
+        this.snapshot = next;
+        this.routeCache.retainVersion(updated.getVersion());
+
+        int cols = updated.getCols();
+        int[][] edges = new int[parsed.length][];
+        for (int i = 0; i < parsed.length; i++) {
+            int a = parsed[i][0] * cols + parsed[i][1];
+            edges[i] = new int[]{a, parsed[i][2] == 0 ? a + 1 : a + cols};
+        }
+        for (IncrementalRoute route : routes.values()) {
+            route.update(updated.getGraph(), edges);
+        }
+        this.trackedRoutesGrid = updated;
+        return getTrackedRoutes();
+    }
+
+    // Tracked routes, dropped first if the grid was replaced (not just re-trafficked) since
+    private Map<Long, IncrementalRoute> trackedRoutes(GridModel grid) {
+        if (this.trackedRoutesGrid != grid) {
+            this.trackedRoutes.clear();
+            this.trackedRoutesGrid = grid;
+        }
+        return this.trackedRoutes;
+    }
+
+    // One "x,y" cell of grid as a cell id, checked like parseCells
+    private static int parseCell(GridModel grid, String xy) {
+        int[][] cells = parseCells(grid, xy, 1);
+        if (cells.length != 1) {
+            throw new IllegalArgumentException("Expected one cell x,y but got: " + xy);
+        }
+        return cells[0][0];
+    }
+
+    // Cheapest store's route to cell goal, or null if unreachable
+    private static PlanResult routeFromTrees(ShortestPathTree[] trees, int goal) {
+        int best = -1;
+        for (int s = 0; s < trees.length; s++) {
+            if (trees[s].reaches(goal) && (best < 0 || trees[s].dist(goal) < trees[best].dist(goal))) {
+                best = s;
+            }
+        }
+        if (best < 0) {
+            return null;
+        }
+        return trees[best].resultTo(goal);
+    }
+
+    /**
+     * Benchmark a strategy by running plan() multiple times and computing average CPU/allocation/time.
      * @param strategyName Name of the strategy (BFS, DFS, UCS, ASTAR1, etc.)
      * @param runs Number of runs to average over
      * @return Benchmark result string with averages
@@ -168,29 +572,21 @@ public class DeliveryPlanner {
     public String benchmark(String strategyName, int runs) {
         if (runs < 1) runs = 1;
 
-        // Ensure grid is loaded
-        if (this.initialState == null || this.trafficString == null || this.stores == null || this.destinations == null) {
-            loadFromGenerator();
-        }
-        if (this.initialState == null || this.trafficString == null || this.stores == null || this.destinations == null) {
+        GridSnapshot snapshot = snapshot();
+        if (snapshot == null) {
             return "FAIL: Grid not initialized.";
         }
-
         // Warmup: run a few times without measurement
         int warmupRuns = 3;
         for (int i = 0; i < warmupRuns; i++) {
             GenericSearch warmupStrategy = chooseStrategy(strategyName);
             if (warmupStrategy == null) return "Invalid strategy: " + strategyName;
-            plan(warmupStrategy);
+            plan(warmupStrategy, null);
         }
 
-        // Force GC before measurement
-        System.gc();
-        try { Thread.sleep(50); } catch (InterruptedException ignored) {}
-
         long totalWallNs = 0;
         long totalCpuNs = 0;
-        long totalRamDelta = 0;
+        long totalAllocated = 0;
         String lastResult = null;
 
         for (int i = 0; i < runs; i++) {
@@ -198,31 +594,28 @@ public class DeliveryPlanner {
             GenericSearch strategy = chooseStrategy(strategyName);
             if (strategy == null) return "Invalid strategy: " + strategyName;
 
-            System.gc();
-            try { Thread.sleep(10); } catch (InterruptedException ignored) {}
-
-            long ramBefore = usedRam();
+            long allocatedBefore = threadAllocated();
             long wallBefore = System.nanoTime();
             long cpuBefore = threadCpu();
 
-            lastResult = plan(strategy);
+            lastResult = plan(strategy, null); // bypass the route cache so every run searches
 
             long cpuAfter = threadCpu();
             long wallAfter = System.nanoTime();
-            long ramAfter = usedRam();
+            long allocatedAfter = threadAllocated();
 
             totalWallNs += (wallAfter - wallBefore);
             totalCpuNs += (cpuAfter - cpuBefore);
-            totalRamDelta += (ramAfter - ramBefore);
+            totalAllocated += (allocatedAfter - allocatedBefore);
         }
 
         double avgWallMs = (totalWallNs / (double) runs) / 1_000_000.0;
         double avgCpuMs = (totalCpuNs / (double) runs) / 1_000_000.0;
-        double avgRamKB = (totalRamDelta / (double) runs) / 1024.0;
+        double avgAllocatedKB = (totalAllocated / (double) runs) / 1024.0;
 
         String summary = String.format(
-            "Benchmark [%s] over %d runs:\n  avgWallMs=%.3f\n  avgCpuMs=%.3f\n  avgRamDeltaKB=%.1f",
-            strategyName, runs, avgWallMs, avgCpuMs, avgRamKB
+            "Benchmark [%s] over %d runs:\n  avgWallMs=%.3f\n  avgCpuMs=%.3f\n  avgAllocatedKB=%.1f",
+            strategyName, runs, avgWallMs, avgCpuMs, avgAllocatedKB
         );
 
         System.out.println(summary);
@@ -242,54 +635,34 @@ public class DeliveryPlanner {
             return "Invalid strategy: " + strategyName;
         }
 
-        // Ensure grid data is available (no regeneration here)
-        if (this.initialState == null || this.trafficString == null || this.stores == null || this.destinations == null) {
-            loadFromGenerator();
-        }
-
-        if (this.initialState == null || this.trafficString == null || this.stores == null || this.destinations == null) {
+        GridSnapshot snapshot = snapshot();
+        if (snapshot == null) {
             return "FAIL: Grid not initialized. Set grid via GridGenerator before planning.";
         }
+        GridModel grid = snapshot.getGrid();
+        int[][] stores = grid.getStores();
+        int[][] destinations = grid.getDestinations();
 
-        if (storeIndex < 0 || storeIndex >= this.stores.length) {
+        if (storeIndex < 0 || storeIndex >= stores.length) {
             return "FAIL: Invalid store index";
         }
 
-        this.searcher = new DeliverySearch(strategy);
+        DeliverySearch searcher = new DeliverySearch(strategy);
 
-        List<String> planLines = new ArrayList<>();
+        List<PlanResult> planLines = new ArrayList<>();
 
-        // For each destination, compute the path; ensure it uses the requested store
-        for (int dstIndex = 0; dstIndex < this.destinations.length; dstIndex++) {
+        // For each destination, compute the path from the requested store
+        for (int dstIndex = 0; dstIndex < destinations.length; dstIndex++) {
             int dstR = destinations[dstIndex][0];
             int dstC = destinations[dstIndex][1];
-            String goalState = dstR + "," + dstC;
-            String storeState = stores[storeIndex][0] + "," + stores[storeIndex][1];
-            String result = searcher.path(initialState, trafficString, storeState, goalState);
-
-            // Some strategies (e.g., IterativeDeepening) return "storeIndex;path"
-            if (result == null || result.equals("FAIL")) {
+            PlanResult result = solveCached(routeCache, searcher, grid, stores[storeIndex], dstR, dstC);
+            if (!result.isSuccess()) {
                 return "FAIL";
             }
-
-            // If result encodes the store index, verify it matches
-            // Expected format: "<storeIndex>;<moves...>" or raw path for other algorithms
-            String[] parts = result.split(";", 2);
-            boolean hasStorePrefix = parts.length > 1 && parts[0].matches("\\d+");
-            if (hasStorePrefix) {
-                int chosenStore = Integer.parseInt(parts[0]);
-                if (chosenStore != storeIndex) {
-                    // Not using the requested store; treat as unreachable under constraint
-                    return "FAIL";
-                }
-                planLines.add(result);
-            } else {
-                // Strategy does not specify store; accept path as-is
-                planLines.add(result);
-            }
+            planLines.add(result);
         }
 
-        return "SUCCESS\n" + String.join("\n", planLines);
+        return render(planLines);
     }
 
     /**
@@ -300,46 +673,33 @@ public class DeliveryPlanner {
             return "Invalid strategy: null";
         }
 
-        if (this.initialState == null || this.trafficString == null || this.stores == null || this.destinations == null) {
-            loadFromGenerator();
-        }
-
-        if (this.initialState == null || this.trafficString == null || this.stores == null || this.destinations == null) {
+        GridSnapshot snapshot = snapshot();
+        if (snapshot == null) {
             return "FAIL: Grid not initialized. Set grid via GridGenerator before planning.";
         }
+        GridModel grid = snapshot.getGrid();
+        int[][] stores = grid.getStores();
+        int[][] destinations = grid.getDestinations();
 
-        if (storeIndex < 0 || storeIndex >= this.stores.length) {
+        if (storeIndex < 0 || storeIndex >= stores.length) {
             return "FAIL: Invalid store index";
         }
 
-        this.searcher = new DeliverySearch(strategy);
+        DeliverySearch searcher = new DeliverySearch(strategy);
 
-        List<String> planLines = new ArrayList<>();
+        List<PlanResult> planLines = new ArrayList<>();
 
-        for (int dstIndex = 0; dstIndex < this.destinations.length; dstIndex++) {
+        for (int dstIndex = 0; dstIndex < destinations.length; dstIndex++) {
             int dstR = destinations[dstIndex][0];
             int dstC = destinations[dstIndex][1];
-            String goalState = dstR + "," + dstC;
-            String storeState = stores[storeIndex][0] + "," + stores[storeIndex][1];
-            String result = searcher.path(initialState, trafficString, storeState, goalState);
-            if (result == null || "FAIL".equals(result)) {
+            PlanResult result = solveCached(routeCache, searcher, grid, stores[storeIndex], dstR, dstC);
+            if (!result.isSuccess()) {
                 return "FAIL";
             }
-
-            String[] parts = result.split(";", 2);
-            boolean hasStorePrefix = parts.length > 1 && parts[0].matches("\\d+");
-            if (hasStorePrefix) {
-                int chosenStore = Integer.parseInt(parts[0]);
-                if (chosenStore != storeIndex) {
-                    return "FAIL";
-                }
-                planLines.add(result);
-            } else {
-                planLines.add(result);
-            }
+            planLines.add(result);
         }
 
-        return "SUCCESS\n" + String.join("\n", planLines);
+        return render(planLines);
     }
 
     /**
@@ -361,48 +721,206 @@ public class DeliveryPlanner {
         if (strategy == null) {
             return "Invalid strategy: null";
         }
-        if (this.initialState == null || this.trafficString == null || this.stores == null || this.destinations == null) {
-            loadFromGenerator();
-        }
-        if (this.initialState == null || this.trafficString == null || this.stores == null || this.destinations == null) {
+        GridSnapshot snapshot = snapshot();
+        if (snapshot == null) {
             return "FAIL: Grid not initialized. Set grid via GridGenerator before planning.";
         }
-        this.searcher = new DeliverySearch(strategy);
+        GridModel grid = snapshot.getGrid();
+        int[][] stores = grid.getStores();
+        int[][] destinations = grid.getDestinations();
+        DeliverySearch searcher = new DeliverySearch(strategy);
+
+        String[] parts = goalXY.split(",");
+        int goalR = Integer.parseInt(parts[0].trim());
+        int goalC = Integer.parseInt(parts[1].trim());
 
         // Choose best store automatically for this goal
-        String bestResult = null;
-        int bestCost = Integer.MAX_VALUE;
-        for (int s = 0; s < this.stores.length; s++) {
-            String storeState = stores[s][0] + "," + stores[s][1];
-            String result = this.searcher.path(this.initialState, this.trafficString, storeState, goalXY);
-            if (result == null || result.startsWith("FAIL")) continue;
-            int cost = extractResultCost(result);
-            if (cost < bestCost) { bestCost = cost; bestResult = result; }
+        PlanResult bestResult = null;
+        for (int s = 0; s < stores.length; s++) {
+            PlanResult result = solveCached(this.routeCache, searcher, grid, stores[s], goalR, goalC);
+            if (!result.isSuccess()) continue;
+            if (bestResult == null || result.getCost() < bestResult.getCost()) bestResult = result;
         }
 
-        return bestResult == null ? "FAIL" : bestResult;
+        return bestResult == null ? "FAIL" : bestResult.toString();
     }
 
-    // Utility: extract final cost from search result string (implementation depends on your search)
-    private int extractResultCost(String result) {
-        // Expected format: x,y;plan;cost;nodesExpanded
+    /**
+     * Answer many route queries in one call. Each goal in {@code goals}
+     * ("x,y;x,y;...") gets the cheapest store, as in planForGoal; each pair in
+     * {@code pairs} ("storeX,storeY,goalX,goalY;...") is routed from the given store.
+     * Either list may be null or empty.
+     *
+     * Every distinct (store, goal) search runs once, however many queries share it.
+     * Searches are grouped by store and run in chunks on the parallel executor; a
+     * chunk reuses one strategy instance and its search buffers for all of its
+     * goals. Each search in a chunk has a different goal, so heuristic tables are
+     * only shared through the per-grid HeuristicTables cache, across stores that
+     * route to the same goal. Results go through the route cache like any other plan.
+     *
+     * @return "SUCCESS", then one line per query, goals first and then pairs, each in
+     *         request order: the plan line, or "FAIL" if that query has no route
+     */
+    public String planBatch(String strategyName, String goals, String pairs) {
+        if (chooseStrategy(strategyName) == null) {
+            return "Invalid strategy: " + strategyName;
+        }
+        GridSnapshot snapshot = snapshot();
+        if (snapshot == null) {
+            return "FAIL: Grid not initialized. Set grid via GridGenerator before planning.";
+        }
+        GridModel grid = snapshot.getGrid();
+        GridGraph graph = grid.getGraph();
+        int[][] stores = grid.getStores();
+
+        int[][] goalQueries;
+        int[][] pairQueries;
+        try {
+            goalQueries = parseCells(grid, goals, 1);
+            pairQueries = parseCells(grid, pairs, 2);
+        } catch (IllegalArgumentException e) {
+            return "FAIL: " + e.getMessage();
+        }
+
+        // Distinct goals per start cell, in first-seen order
+        Map<Integer, LinkedHashSet<Integer>> byStore = new LinkedHashMap<>();
+        for (int[] query : goalQueries) {
+            for (int[] store : stores) {
+                byStore.computeIfAbsent(graph.id(store[0], store[1]), k -> new LinkedHashSet<>()).add(query[0]);
+            }
+        }
+        for (int[] query : pairQueries) {
+            byStore.computeIfAbsent(query[0], k -> new LinkedHashSet<>()).add(query[1]);
+        }
+
+        List<int[]> chunkStarts = new ArrayList<>();
+        List<int[]> chunkGoals = new ArrayList<>();
+        List<Future<PlanResult[]>> chunkResults = new ArrayList<>();
+        ExecutorService executor = this.parallelExecutor;
+        for (Map.Entry<Integer, LinkedHashSet<Integer>> entry : byStore.entrySet()) {
+            int start = entry.getKey();
+            int[] store = {graph.row(start), graph.col(start)};
+            int[] targets = entry.getValue().stream().mapToInt(Integer::intValue).toArray();
+            for (int from = 0; from < targets.length; from += BATCH_CHUNK) {
+                int[] chunk = Arrays.copyOfRange(targets, from, Math.min(targets.length, from + BATCH_CHUNK));
+                chunkStarts.add(new int[]{start});
+                chunkGoals.add(chunk);
+                chunkResults.add(executor.submit(() -> {
+                    DeliverySearch context = new DeliverySearch(chooseStrategy(strategyName));
+                    PlanResult[] out = new PlanResult[chunk.length];
+                    for (int i = 0; i < chunk.length; i++) {
+                        out[i] = solveCached(routeCache, context, grid, store, graph.row(chunk[i]), graph.col(chunk[i]));
+                    }
+                    return out;
+                }));
+            }
+        }
+
+        // (start << 32 | goal) -> route
+        Map<Long, PlanResult> routes = new HashMap<>();
         try {
-            String[] parts = result.split(";");
-            if (parts.length >= 3) {
-                return Integer.parseInt(parts[2]);
+            for (int t = 0; t < chunkResults.size(); t++) {
+                PlanResult[] out = chunkResults.get(t).get();
+                int[] chunk = chunkGoals.get(t);
+                for (int i = 0; i < chunk.length; i++) {
+                    routes.put(((long) chunkStarts.get(t)[0] << 32) | chunk[i], out[i]);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            chunkResults.forEach(f -> f.cancel(true));
+            return "FAIL: Planning interrupted";
+        } catch (ExecutionException e) {
+            chunkResults.forEach(f -> f.cancel(true));
+            return "FAIL: " + e.getCause();
+        }
+
+        StringBuilder sb = new StringBuilder("SUCCESS");
+        for (int[] query : goalQueries) {
+            PlanResult best = null;
+            for (int[] store : stores) {
+                PlanResult result = routes.get(((long) graph.id(store[0], store[1]) << 32) | query[0]);
+                if (!result.isSuccess()) continue;
+                if (best == null || result.getCost() < best.getCost()) best = result;
+            }
+            sb.append('\n');
+            if (best == null) sb.append("FAIL"); else best.appendTo(sb);
+        }
+        for (int[] query : pairQueries) {
+            PlanResult result = routes.get(((long) query[0] << 32) | query[1]);
+            sb.append('\n');
+            if (result.isSuccess()) result.appendTo(sb); else sb.append("FAIL");
+        }
+        return sb.toString();
+    }
+
+    // ";"-separated entries of 2 * cellsPerEntry coordinates each, as cell ids of grid
+    private static int[][] parseCells(GridModel grid, String list, int cellsPerEntry) {
+        if (list == null || list.isBlank()) {
+            return new int[0][];
+        }
+        List<int[]> entries = new ArrayList<>();
+        for (String entry : list.split(";")) {
+            if (entry.isBlank()) continue;
+            String[] coords = entry.split(",");
+            if (coords.length != 2 * cellsPerEntry) {
+                throw new IllegalArgumentException("Expected " + 2 * cellsPerEntry + " coordinates but got: " + entry);
+            }
+            int[] cells = new int[cellsPerEntry];
+            for (int i = 0; i < cellsPerEntry; i++) {
+                int r = Integer.parseInt(coords[2 * i].trim());
+                int c = Integer.parseInt(coords[2 * i + 1].trim());
+                if (r < 0 || r >= grid.getRows() || c < 0 || c >= grid.getCols()) {
+                    throw new IllegalArgumentException("Cell outside the grid: " + r + "," + c);
+                }
+                cells[i] = grid.getGraph().id(r, c);
             }
-            return Integer.MAX_VALUE;
-        } catch (Exception e) {
-            return Integer.MAX_VALUE;
+            entries.add(cells);
         }
+        return entries.toArray(new int[0][]);
+    }
+
+    /**
+     * Route from {@code store} to (goalR, goalC) with the context's strategy, looked
+     * up in (and added to) {@code cache} unless it is null.
+     */
+    private static PlanResult solveCached(RouteCache cache, DeliverySearch context, GridModel grid, int[] store,
+                                          int goalR, int goalC) {
+        if (cache == null) {
+            return context.solve(grid, store[0] + "," + store[1], goalR + "," + goalC);
+        }
+        GridGraph graph = grid.getGraph();
+        int start = graph.id(store[0], store[1]);
+        int goal = graph.id(goalR, goalC);
+        String strategy = context.getStrategy().strategyKey();
+        PlanResult result = cache.get(grid.getVersion(), start, goal, strategy);
+        if (result == null) {
+            result = context.solve(grid, store[0] + "," + store[1], goalR + "," + goalC);
+            cache.put(grid.getVersion(), start, goal, strategy, result);
+        }
+        return result;
+    }
+
+    // Render a full plan: "SUCCESS", then one "x,y;plan;cost;nodesExpanded" line per destination
+    private static String render(List<PlanResult> results) {
+        StringBuilder sb = new StringBuilder("SUCCESS");
+        for (PlanResult result : results) {
+            result.appendTo(sb.append('\n'));
+        }
+        return sb.toString();
     }
 
     // -------------------------
     // Helper methods for measurement
     // -------------------------
-    private long usedRam() {
-        Runtime rt = Runtime.getRuntime();
-        return rt.totalMemory() - rt.freeMemory();
+    // Bytes allocated so far by the current thread; unlike a heap-usage delta it is
+    // not disturbed by GC cycles or other threads (0 where the JVM cannot tell)
+    private long threadAllocated() {
+        ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+        if (mx instanceof com.sun.management.ThreadMXBean sun && sun.isThreadAllocatedMemorySupported()) {
+            return sun.getCurrentThreadAllocatedBytes();
+        }
+        return 0L;
     }
 
     private long threadCpu() {
@@ -14,6 +14,10 @@ public class DeliverySearch {
         this.strategy = strategy;
     }
 
+    public GenericSearch getStrategy() {
+        return this.strategy;
+    }
+
     // Load grid data for the chosen strategy
     public void extract(String initialState, String trafficString) {
         this.initialState = initialState;
@@ -29,10 +33,29 @@ public class DeliverySearch {
         return this.strategy.search(goalState);
     }
 
+    // Typed variant of search(goalState)
+    public PlanResult solve(String goalState) {
+        return this.strategy.solve(goalState);
+    }
+
     // Utility wrapper: run search from a specific store to a goal
     public String path(String initialState, String traffic, String storeState, String goalState) {
         this.extract(initialState, traffic);
         this.strategy.setStart(storeState);
         return this.strategy.search(goalState);
     }
-}
+
+    // Same as above on an already-parsed grid; the model is only (re)loaded when it changes
+    public String path(GridModel grid, String storeState, String goalState) {
+        return solve(grid, storeState, goalState).toString();
+    }
+
+    // Typed variant of path(grid, storeState, goalState)
+    public PlanResult solve(GridModel grid, String storeState, String goalState) {
+        if (this.strategy.grid != grid) {
+            this.strategy.load(grid);
+        }
+        this.strategy.setStart(storeState);
+        return this.strategy.solve(goalState);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,90 @@
+package ai.proj;
+
+/**
+ * Uniform-cost search on an integer bucket queue.
+ *
+ * Step costs are small integers (traffic 1..4, tunnels cost their Manhattan
+ * length), so the frontier can be a Dial bucket queue with O(1) push and pop
+ * instead of a binary heap. When some step is too expensive for a compact
+ * bucket ring (long tunnels on large grids), a radix heap is used instead.
+ * The ring is sized from graph.maxCost(); if a step turns out to cost more (a
+ * grid file whose header understates its traffic), the search starts over on a
+ * radix heap, which has no step limit. Returns the same costs as {@link UniformCost}.
+ */
+public class DialUniformCost extends GenericSearch {
+
+    // Largest step cost for which the circular bucket ring is used
+    static final int MAX_BUCKET_STEP = 1024;
+
+    private MonotoneQueue frontier;
+    private int bucketStep; // largest step the frontier takes, -1 for the radix heap
+    private CellLabels labels;
+    private GridGraph frontierGraph; // graph the frontier was sized for
+
+    @Override
+    public PlanResult solve(String goalState) {
+        int goal = parseCell(goalState);
+        int start = startCell();
+
+        int nodesExpanded = dialSearch(start, goal);
+        if (nodesExpanded < 0) {
+            bucketStep = -1;
+            frontier = new RadixHeap();
+            nodesExpanded = dialSearch(start, goal);
+        }
+        if (!labels.isClosed(goal)) {
+            return PlanResult.failure(nodesExpanded);
+        }
+        return labels.resultTo(goal, graph, nodesExpanded);
+    }
+
+    // Nodes expanded, or -1 if a step cost more than the bucket ring allows
+    private int dialSearch(int start, int goal) {
+        if (frontierGraph != graph) {
+            bucketStep = graph.maxCost() <= MAX_BUCKET_STEP ? graph.maxCost() : -1;
+            frontier = bucketStep >= 0 ? new BucketQueue(bucketStep) : new RadixHeap();
+            if (labels == null || labels.capacity() != graph.cellCount()) {
+                labels = new CellLabels(graph.cellCount());
+            }
+            frontierGraph = graph;
+        }
+        frontier.clear();
+        labels.reset();
+        int nodesExpanded = 0;
+
+        labels.set(start, 0, -1, (byte) 0);
+        frontier.push(start, 0);
+
+        while (!frontier.isEmpty()) {
+            int current = frontier.poll();
+
+            // Lazy deletion: skip entries superseded by a cheaper push
+            if (labels.isClosed(current) || frontier.lastKey() != labels.g[current]) {
+                continue;
+            }
+            labels.close(current);
+            nodesExpanded++;
+
+            if (current == goal) {
+                break;
+            }
+
+            int g = labels.g[current];
+            int n = graph.successors(current, succCell, succCost, succAction);
+            for (int i = 0; i < n; i++) {
+                int next = succCell[i];
+                if (labels.isClosed(next)) continue;
+                if (bucketStep >= 0 && succCost[i] > bucketStep) {
+                    return -1;
+                }
+                int newCost = g + succCost[i];
+                if (newCost < labels.bestG(next)) {
+                    labels.set(next, newCost, current, succAction[i]);
+                    frontier.push(next, newCost);
+                }
+            }
+        }
+
+        return nodesExpanded;
+    }
+}
@@ -7,7 +7,7 @@ public abstract class GenericSearch {
     protected int cols;
     protected int numDestinations;
     protected int numStores;
-    protected int[][][] traffic;
+    protected TrafficStore traffic;
     protected int[][] destinations;
     protected int[][] stores;
     protected int[][] tunnels;
@@ -19,7 +19,30 @@ public abstract class GenericSearch {
     // Global action order (tiebreaker order) - must be used by all search algorithms
     protected String[] tieBreakerOrder = {"up", "down", "left", "right", "tunnel"};
 
-    public abstract String search(String goalState);
+    // Grid currently loaded (shared, read-only) and its integer-encoded view (cell id = row * cols + col)
+    protected GridModel grid;
+    protected GridGraph graph;
+    // Scratch buffers for graph.successors(); sized to graph.maxDegree()
+    protected int[] succCell;
+    protected int[] succCost;
+    protected byte[] succAction;
+
+    /** Search from the start store to goalState ("row,col"). */
+    public abstract PlanResult solve(String goalState);
+
+    // Same search rendered as a plan line, "r,c;actions;cost;nodesExpanded" or "FAIL;0;nodesExpanded"
+    public String search(String goalState) {
+        return solve(goalState).toString();
+    }
+
+    /**
+     * Identifies the routes this search returns, for caching: two searches with equal
+     * keys must find the same route for the same grid, start and goal. Strategies
+     * configured by more than their class (e.g. the heuristic) extend it.
+     */
+    public String strategyKey() {
+        return getClass().getSimpleName();
+    }
 
     // Set the starting store position for algorithms that should not loop over stores
     public void setStart(String storeState) {
@@ -27,82 +50,82 @@ public abstract class GenericSearch {
         this.startRow = Integer.parseInt(parts[0]);
         this.startCol = Integer.parseInt(parts[1]);
     }
+
+    // Cell id of the selected start store (first store if none was set)
+    protected int startCell() {
+        int r = (startRow >= 0 ? startRow : stores[0][0]);
+        int c = (startCol >= 0 ? startCol : stores[0][1]);
+        return graph.id(r, c);
+    }
+
+    // Cell id of a "row,col" state string
+    protected int parseCell(String state) {
+        int comma = state.indexOf(',');
+        int end = comma + 1;
+        while (end < state.length() && state.charAt(end) != ',' && state.charAt(end) != ';') end++;
+        int r = Integer.parseInt(state, 0, comma, 10);
+        int c = Integer.parseInt(state, comma + 1, end, 10);
+        return graph.id(r, c);
+    }
+
+    // "row,col" rendering of a cell id
+    protected String cellState(int cell) {
+        return graph.row(cell) + "," + graph.col(cell);
+    }
     
     /**
      * Generic successor generator that all search algorithms must use.
      * Expands actions in the order specified by tieBreakerOrder.
      * Returns (newState, actionName, stepCost) tuples.
      * 
+     * Hot search loops should call graph.successors(cell, succCell, succCost, succAction)
+     * directly; this String-based form is kept for callers that work with "row,col" states.
+     * 
      * @param state Current state as "row,col"
      * @return List of Successor objects containing new state, action name, and step cost
      */
     protected List<Successor> getSuccessors(String state) {
-        List<Successor> successors = new ArrayList<>();
-        String[] coords = state.split(",");
-        int r = Integer.parseInt(coords[0]);
-        int c = Integer.parseInt(coords[1]);
-        
-        // Generate successors in tieBreakerOrder
-        for (String action : tieBreakerOrder) {
-            switch (action) {
-                case "up":
-                    // Move up: check if valid and not blocked
-                    if (r - 1 >= 0 && traffic[r - 1][c][1] > 0) {
-                        int cost = traffic[r - 1][c][1];
-                        successors.add(new Successor((r - 1) + "," + c, "up", cost));
-                    }
-                    break;
-                    
-                case "down":
-                    // Move down: check if valid and not blocked
-                    if (r + 1 < rows && traffic[r][c][1] > 0) {
-                        int cost = traffic[r][c][1];
-                        successors.add(new Successor((r + 1) + "," + c, "down", cost));
-                    }
-                    break;
-                    
-                case "left":
-                    // Move left: check if valid and not blocked
-                    if (c - 1 >= 0 && traffic[r][c - 1][0] > 0) {
-                        int cost = traffic[r][c - 1][0];
-                        successors.add(new Successor(r + "," + (c - 1), "left", cost));
-                    }
-                    break;
-                    
-                case "right":
-                    // Move right: check if valid and not blocked
-                    if (c + 1 < cols && traffic[r][c][0] > 0) {
-                        int cost = traffic[r][c][0];
-                        successors.add(new Successor(r + "," + (c + 1), "right", cost));
-                    }
-                    break;
-                    
-                case "tunnel":
-                    // Check all tunnels for teleportation
-                    for (int i = 0; i < numTunnels; i++) {
-                        int r1 = tunnels[i * 2][0];
-                        int c1 = tunnels[i * 2][1];
-                        int r2 = tunnels[i * 2 + 1][0];
-                        int c2 = tunnels[i * 2 + 1][1];
-                        
-                        // If at tunnel entrance 1, can teleport to entrance 2
-                        if (r == r1 && c == c1) {
-                            int manhattanCost = Math.abs(r1 - r2) + Math.abs(c1 - c2);
-                            successors.add(new Successor(r2 + "," + c2, "tunnel", manhattanCost));
-                        }
-                        // If at tunnel entrance 2, can teleport to entrance 1
-                        else if (r == r2 && c == c2) {
-                            int manhattanCost = Math.abs(r1 - r2) + Math.abs(c1 - c2);
-                            successors.add(new Successor(r1 + "," + c1, "tunnel", manhattanCost));
-                        }
-                    }
-                    break;
-            }
+        int n = graph.successors(parseCell(state), succCell, succCost, succAction);
+        List<Successor> successors = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            successors.add(new Successor(cellState(succCell[i]), GridGraph.actionName(succAction[i]), succCost[i]));
         }
-        
         return successors;
     }
     
+    /**
+     * Search tree node linked to its parent. Only the last action is stored on the
+     * node, so generating a successor is O(1); the full action sequence is rebuilt
+     * once, by walking the parent chain, when the goal is reached.
+     */
+    protected static class SearchNode {
+        final int cell;          // Cell id (row * cols + col)
+        final int cost;          // Path cost g(n) from the start
+        final SearchNode parent; // null for the start node
+        final byte action;       // Action code that led here from parent (unused at the start)
+
+        SearchNode(int cell, int cost, SearchNode parent, byte action) {
+            this.cell = cell;
+            this.cost = cost;
+            this.parent = parent;
+            this.action = action;
+        }
+    }
+
+    /**
+     * Result for the route from the start to the given node, rebuilt from its parent chain.
+     */
+    protected PlanResult resultTo(SearchNode node, int nodesExpanded) {
+        int depth = 0;
+        SearchNode root = node;
+        for (; root.parent != null; root = root.parent) depth++;
+
+        long[] moves = PlanResult.words(depth);
+        int i = depth;
+        for (SearchNode n = node; n.parent != null; n = n.parent) PlanResult.put(moves, --i, n.action);
+        return PlanResult.packed(graph.row(root.cell), graph.col(root.cell), moves, depth, node.cost, nodesExpanded);
+    }
+
     /**
      * Helper class to represent a successor state with action and cost
      */
@@ -126,96 +149,36 @@ public abstract class GenericSearch {
         }
     }
     
-    public void extract(String initialState, String trafficString) {
-        // Parse initialState: m;n;P;S;CustomerX_1,CustomerY_1,...;TunnelX_1,TunnelY_1,TunnelX_1,TunnelY_1,...;
-        String[] parts = initialState.split(";");
-        
-        // Extract dimensions and counts
-        this.rows = Integer.parseInt(parts[0]);
-        this.cols = Integer.parseInt(parts[1]);
-        this.numDestinations = Integer.parseInt(parts[2]);
-        this.numStores = Integer.parseInt(parts[3]);
-        
-        // Extract customer/destination locations
-        this.destinations = new int[numDestinations][2];
-        if (parts.length > 4 && !parts[4].isEmpty()) {
-            String[] destCoords = parts[4].split(",");
-            for (int i = 0; i < numDestinations; i++) {
-                this.destinations[i][0] = Integer.parseInt(destCoords[i * 2]);
-                this.destinations[i][1] = Integer.parseInt(destCoords[i * 2 + 1]);
-            }
-        }
-        
-        this.stores = new int[numStores][2];
-        // Extract store locations (assuming they come after destinations, before tunnels)
-        if (parts.length > 5 && !parts[5].isEmpty()) {
-            String[] destCoords = parts[5].split(",");
-            for (int i = 0; i < numStores; i++) {
-                this.stores[i][0] = Integer.parseInt(destCoords[i * 2]);
-                this.stores[i][1] = Integer.parseInt(destCoords[i * 2 + 1]);
-            }
-        }
-        
+    /**
+     * Point this search at an already-parsed grid. The model is shared by reference,
+     * so loading it again for the next store/destination pair costs nothing.
+     */
+    public void load(GridModel grid) {
+        this.grid = grid;
+        this.rows = grid.getRows();
+        this.cols = grid.getCols();
+        this.numDestinations = grid.getNumDestinations();
+        this.numStores = grid.getNumStores();
+        this.traffic = grid.getTraffic();
+        this.destinations = grid.getDestinations();
+        this.stores = grid.getStores();
+        this.tunnels = grid.getTunnels();
+        this.numTunnels = grid.getNumTunnels();
 
+        // Reuse the model's successor graph unless this search customised the move order
+        this.graph = Arrays.equals(tieBreakerOrder, GridModel.TIE_BREAKER_ORDER)
+                ? grid.getGraph()
+                : GridGraph.build(rows, cols, traffic, tunnels, numTunnels, tieBreakerOrder);
+        this.succCell = new int[graph.maxDegree()];
+        this.succCost = new int[graph.maxDegree()];
+        this.succAction = new byte[graph.maxDegree()];
+    }
 
-        // Extract tunnel locations (pairs of entrances) - everything after parts[5] are tunnels
-        if (parts.length > 6) {
-            // Collect all tunnel parts (from index 6 onwards)
-            StringBuilder tunnelBuilder = new StringBuilder();
-            for (int i = 6; i < parts.length; i++) {
-                if (!parts[i].isEmpty()) {
-                    if (tunnelBuilder.length() > 0) {
-                        tunnelBuilder.append(',');
-                    }
-                    tunnelBuilder.append(parts[i]);
-                }
-            }
-            
-            if (tunnelBuilder.length() > 0) {
-                String[] tunnelCoords = tunnelBuilder.toString().split(",");
-                this.numTunnels = tunnelCoords.length / 4;
-                this.tunnels = new int[numTunnels * 2][2];
-                for (int i = 0; i < numTunnels; i++) {
-                    this.tunnels[i * 2][0] = Integer.parseInt(tunnelCoords[i * 4]);
-                    this.tunnels[i * 2][1] = Integer.parseInt(tunnelCoords[i * 4 + 1]);
-                    this.tunnels[i * 2 + 1][0] = Integer.parseInt(tunnelCoords[i * 4 + 2]);
-                    this.tunnels[i * 2 + 1][1] = Integer.parseInt(tunnelCoords[i * 4 + 3]);
-                }
-            } else {
-                this.numTunnels = 0;
-                this.tunnels = new int[0][2];
-            }
-        } else {
-            this.numTunnels = 0;
-            this.tunnels = new int[0][2];
-        }
-        // Initialize traffic 3D array
-        this.traffic = new int[rows][cols][2];
-        
-        // Parse trafficString: SrcX_1,SrcY_1,DstX_1,DstY_1,Traffic_1;...
-        if (trafficString != null && !trafficString.isEmpty()) {
-            String[] trafficEntries = trafficString.split(";");
-            for (String entry : trafficEntries) {
-                if (!entry.isEmpty()) {
-                    String[] coords = entry.split(",");
-                    int srcX = Integer.parseInt(coords[0]);
-                    int srcY = Integer.parseInt(coords[1]);
-                    int dstX = Integer.parseInt(coords[2]);
-                    int dstY = Integer.parseInt(coords[3]);
-                    int trafficLevel = Integer.parseInt(coords[4]);
-                    
-                    // Determine direction: 0 for horizontal (right), 1 for vertical (down)
-                    if (dstX == srcX && dstY == srcY + 1) {
-                        // Moving right
-                        traffic[srcX][srcY][0] = trafficLevel;
-                    } else if (dstX == srcX + 1 && dstY == srcY) {
-                        // Moving down
-                        traffic[srcX][srcY][1] = trafficLevel;
-                    }
-                }
-            }
-        }
+    // Parse a grid and load it; prefer load(GridModel) when the grid is reused
+    public void extract(String initialState, String trafficString) {
+        load(GridModel.parse(initialState, trafficString));
     }
+
     public void extract (String initialState, String trafficString, boolean print){
         extract(initialState, trafficString);
         if (print){
@@ -228,7 +191,7 @@ public abstract class GenericSearch {
             }
             for(int r=0; r<rows; r++) {
                 for(int c=0; c<cols; c++) {
-                    System.out.println("Traffic at (" + r + "," + c + "): Right=" + traffic[r][c][0] + ", Down=" + traffic[r][c][1]);
+                    System.out.println("Traffic at (" + r + "," + c + "): Right=" + traffic.get(r * cols + c, TrafficStore.RIGHT) + ", Down=" + traffic.get(r * cols + c, TrafficStore.DOWN));
                 }
             }
             for(int i=0; i<numStores; i++) {
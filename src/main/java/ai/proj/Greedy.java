@@ -30,6 +30,10 @@ public class Greedy extends GenericSearch {
             this.heuristic = new h1();
         } else if (heuristicType == 2) {
             this.heuristic = new h2();
+        } else if (heuristicType == 3) {
+            this.heuristic = new h3();
+        } else if (heuristicType == 4) {
+            this.heuristic = new h4();
         } else {
             throw new IllegalArgumentException("Invalid heuristic type");
         }
@@ -38,35 +42,36 @@ public class Greedy extends GenericSearch {
     /**
      * Node class representing a state in the search space
      */
-    private class Node {
-        int row;                // Current row position in grid
-        int col;                // Current column position in grid
-        List<String> actions;   // Sequence of canonical actions taken to reach this state
-        int cost;               // Actual cost g(n) from start to current node
-        int heuristicValue;     // Heuristic estimate h(n) from current to goal
+    private static class Node extends SearchNode {
+        final int heuristicValue;     // Heuristic estimate h(n) from current to goal
 
         /**
          * Constructor for creating a search node
-         * @param row Row position
-         * @param col Column position
-         * @param actions Action sequence (list of canonical action names)
+         * @param cell Cell id
          * @param cost Actual accumulated cost
+         * @param parent Node this one was generated from (null at the start)
+         * @param action Action code taken from parent
          * @param heuristicValue Heuristic estimate to goal
          */
-        public Node(int row, int col, List<String> actions, int cost, int heuristicValue) {
-            this.row = row;
-            this.col = col;
-            this.actions = new ArrayList<>(actions);
-            this.cost = cost;
+        Node(int cell, int cost, SearchNode parent, byte action, int heuristicValue) {
+            super(cell, cost, parent, action);
             this.heuristicValue = heuristicValue;
         }
+    }
 
-        /**
-         * Generate unique state identifier based on position
-         * @return State key in format "row,col"
-         */
-        public String getStateKey() {
-            return row + "," + col;
+    @Override
+    public String strategyKey() {
+        return super.strategyKey() + "/" + heuristic.getClass().getSimpleName();
+    }
+
+    /**
+     * Load the grid and let grid-dependent heuristics (e.g. h3 landmarks) prepare for it
+     */
+    @Override
+    public void load(GridModel grid) {
+        super.load(grid);
+        if (this.heuristic != null) {
+            this.heuristic.prepare(grid);
         }
     }
 
@@ -75,36 +80,28 @@ public class Greedy extends GenericSearch {
      * Compute heuristic values first (like A*) then run Greedy using them
      */
     @Override
-    public String search(String goalState) {
+    public PlanResult solve(String goalState) {
         // Ensure extract(...) was called and grid metadata is available
         if (this.rows <= 0 || this.cols <= 0) {
-            return "FAIL;0;0";
-        }
-
-        // Lazy compute heuristic per position and cache
-        int[][] heuristicValues = new int[this.rows][this.cols];
-        for (int i = 0; i < this.rows; i++) {
-            Arrays.fill(heuristicValues[i], -1);
+            return PlanResult.failure(0);
         }
 
         // Use provided heuristic or default to h1
         heuristic h = (this.heuristic != null) ? this.heuristic : new h1();
 
-        // Delegate to greedySearch with per-position cache usage
         // Parse goal coordinates for initial nodes
-        String[] coords = goalState.split(",");
-        int goalR = Integer.parseInt(coords[0]);
-        int goalC = Integer.parseInt(coords[1]);
+        int goal = parseCell(goalState);
+
+        int start = startCell();
 
-        int startR = (startRow >= 0 ? startRow : stores[0][0]);
-        int startC = (startCol >= 0 ? startCol : stores[0][1]);
+        // Heuristic table for this goal, filled once and reused by the searches from every store
+        int[] heuristicTable = HeuristicTables.forGoal(this.grid, h, goal);
 
-        GreedyResult result = greedySearchWithCache(startR, startC, goalR, goalC, heuristicValues, h, goalState);
-        if (result.actions == null) {
-            return "FAIL;0;" + result.nodesExpanded;
+        GreedyResult result = greedySearch(start, goal, heuristicTable);
+        if (result.solution == null) {
+            return PlanResult.failure(result.nodesExpanded);
         }
-        String plan = String.join(",", result.actions);
-        return startR + "," + startC + ";" + plan + ";" + result.cost + ";" + result.nodesExpanded;
+        return resultTo(result.solution, result.nodesExpanded);
     }
 
     /**
@@ -114,50 +111,57 @@ public class Greedy extends GenericSearch {
      * @param goalState Target destination in format "row,col"
      * @param heuristicValues Precomputed heuristic values for each cell in the grid
      *                       (computed externally using the heuristic interface)
-     * @return Solution string "path;cost;nodesExpanded" or "FAIL;0;nodesExpanded"
+     * @return Route found, or a failure with the number of nodes expanded
      */
-    public String search(String goalState, int[][] heuristicValues) {
+    public PlanResult solve(String goalState, int[][] heuristicValues) {
         // Parse goal coordinates
-        String[] coords = goalState.split(",");
-        int goalR = Integer.parseInt(coords[0]);
-        int goalC = Integer.parseInt(coords[1]);
+        int goal = parseCell(goalState);
 
-        int startR = (startRow >= 0 ? startRow : stores[0][0]);
-        int startC = (startCol >= 0 ? startCol : stores[0][1]);
+        int start = startCell();
 
+        // Flatten to cell ids, filling any entries left at -1 from the heuristic
         heuristic h = (this.heuristic != null) ? this.heuristic : new h1();
-        GreedyResult result = greedySearchWithCache(startR, startC, goalR, goalC, heuristicValues, h, goalState);
-        if (result.actions == null) {
-            return "FAIL;0;" + result.nodesExpanded;
+        int[] heuristicTable = new int[graph.cellCount()];
+        for (int cell = 0; cell < heuristicTable.length; cell++) {
+            int r = graph.row(cell);
+            int c = graph.col(cell);
+            heuristicTable[cell] = heuristicValues[r][c] >= 0 ? heuristicValues[r][c]
+                    : h.findForPosition(r, c, graph.row(goal), graph.col(goal));
+        }
+        GreedyResult result = greedySearch(start, goal, heuristicTable);
+        if (result.solution == null) {
+            return PlanResult.failure(result.nodesExpanded);
         }
-        String plan = String.join(",", result.actions);
-        return startR + "," + startC + ";" + plan + ";" + result.cost + ";" + result.nodesExpanded;
+        return resultTo(result.solution, result.nodesExpanded);
+    }
+
+    // Text form of solve(goalState, heuristicValues)
+    public String search(String goalState, int[][] heuristicValues) {
+        return solve(goalState, heuristicValues).toString();
     }
 
     /**
      * Execute greedy best-first search from a specific starting position
      * Uses priority queue ordered by heuristic value only (not actual cost)
      *
-     * @param startR Starting row coordinate
-     * @param startC Starting column coordinate
-     * @param goalR Goal row coordinate
-     * @param goalC Goal column coordinate
-     * @param heuristicValues Precomputed heuristic values for each cell
+     * @param start Starting cell id
+     * @param goal Goal cell id
+     * @param heuristicTable Heuristic value of each cell, indexed by cell id
      * @return GreedyResult containing path, cost, and statistics
      */
-    private GreedyResult greedySearchWithCache(int startR, int startC, int goalR, int goalC, int[][] heuristicValues, heuristic h, String goalState) {
+    private GreedyResult greedySearch(int start, int goal, int[] heuristicTable) {
         // Priority queue - nodes with lower heuristic values have higher priority
         PriorityQueue<Node> frontier = new PriorityQueue<>(
             Comparator.comparingInt(n -> n.heuristicValue)
         );
 
         // Set to track already explored states
-        Set<String> explored = new HashSet<>();
+        BitSet explored = new BitSet(graph.cellCount());
         int nodesExpanded = 0;
 
         // Create and add initial node
-        int hStart = getHeuristicCached(startR, startC, heuristicValues, h, goalState);
-        Node initialNode = new Node(startR, startC, new ArrayList<>(), 0, hStart);
+        int hStart = heuristicTable[start];
+        Node initialNode = new Node(start, 0, null, (byte) 0, hStart);
         frontier.add(initialNode);
 
         // Main search loop
@@ -166,47 +170,41 @@ public class Greedy extends GenericSearch {
             Node currentNode = frontier.poll();
 
             // Skip if already explored
-            String stateKey = currentNode.getStateKey();
-            if (explored.contains(stateKey)) {
+            if (explored.get(currentNode.cell)) {
                 continue;
             }
 
             // Mark as explored
-            explored.add(stateKey);
+            explored.set(currentNode.cell);
             nodesExpanded++;
 
             // Goal test - check if destination reached
-            if (currentNode.row == goalR && currentNode.col == goalC) {
-                return new GreedyResult(currentNode.actions, currentNode.cost, nodesExpanded);
+            if (currentNode.cell == goal) {
+                return new GreedyResult(currentNode, nodesExpanded);
             }
 
-            // Generate and add successor states using generic method
-            String currentState = currentNode.row + "," + currentNode.col;
-            List<Successor> successors = getSuccessors(currentState);
+            // Generate successor states from the precomputed grid graph
+            int n = graph.successors(currentNode.cell, succCell, succCost, succAction);
 
-            for (Successor succ : successors) {
-                // Build action list by appending new action
-                List<String> newActions = new ArrayList<>(currentNode.actions);
-                newActions.add(succ.action);
+            for (int i = 0; i < n; i++) {
+                // Add to frontier if not already explored
+                if (explored.get(succCell[i])) {
+                    continue;
+                }
 
                 // Update actual cost (tracked but not used for prioritization)
-                int newCost = currentNode.cost + succ.stepCost;
+                int newCost = currentNode.cost + succCost[i];
 
                 // Get heuristic value for new position
-                int newHeuristic = getHeuristicCached(succ.getRow(), succ.getCol(), heuristicValues, h, goalState);
+                int newHeuristic = heuristicTable[succCell[i]];
 
                 // Create successor node
-                Node successor = new Node(succ.getRow(), succ.getCol(), newActions, newCost, newHeuristic);
-
-                // Add to frontier if not already explored
-                if (!explored.contains(successor.getStateKey())) {
-                    frontier.add(successor);
-                }
+                frontier.add(new Node(succCell[i], newCost, currentNode, succAction[i], newHeuristic));
             }
         }
 
         // No path found from this starting position
-        return new GreedyResult(null, Integer.MAX_VALUE, nodesExpanded);
+        return new GreedyResult(null, nodesExpanded);
     }
 
     // Note: getSuccessors is now inherited from GenericSearch, no need to override
@@ -216,21 +214,12 @@ public class Greedy extends GenericSearch {
      * Result class encapsulating search outcome from a single start position
      */
     private static class GreedyResult {
-        List<String> actions;   // Action sequence to goal (canonical names)
-        int cost;               // Total actual cost of path
+        Node solution;          // Goal node; the path is rebuilt from its parent chain
         int nodesExpanded;      // Number of nodes explored
 
-        GreedyResult(List<String> actions, int cost, int nodesExpanded) {
-            this.actions = actions;
-            this.cost = cost;
+        GreedyResult(Node solution, int nodesExpanded) {
+            this.solution = solution;
             this.nodesExpanded = nodesExpanded;
         }
     }
-
-    private int getHeuristicCached(int r, int c, int[][] cache, heuristic h, String goalState) {
-        if (cache[r][c] >= 0) return cache[r][c];
-        int hv = h.findForPosition(r + "," + c, goalState, this.numTunnels, this.rows, this.cols, this.tunnels);
-        cache[r][c] = hv;
-        return hv;
-    }
 }
@@ -0,0 +1,201 @@
+package ai.proj;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+
+/**
+ * Versioned binary grid file, loaded by memory-mapping the traffic.
+ *
+ * Layout (ints little-endian):
+ * <pre>
+ *  0  magic "DGRD"          4  format version (1)     8  flags (bit 0: int traffic, bit 1: short traffic)
+ * 12  rows                 16  cols                  20  destinations P
+ * 24  stores S             28  tunnels T             32  max traffic level
+ * 36  reserved, 0 up to 64
+ * 64  P x (r, c), S x (r, c), T x (r1, c1, r2, c2), zero padding to a multiple of 8
+ *     traffic: rows * cols * 2 levels in TrafficStore order (right, down per cell),
+ *     one unsigned byte each, or one unsigned short / int each if flagged
+ * </pre>
+ *
+ * load() reads the header and the small cell lists and maps the traffic
+ * read-only: opening a multi-gigabyte grid costs a few system calls, searches
+ * read edge costs straight from the mapping, and processes loading the same
+ * file share its pages in the OS page cache. The levels are not scanned, so the
+ * header's max level is only a hint: searches that size structures from it
+ * (DialUniformCost) cope with a file whose header understates its traffic.
+ */
+public final class GridFile {
+
+    private static final int MAGIC = 'D' | 'G' << 8 | 'R' << 16 | 'D' << 24;
+    public static final int FORMAT_VERSION = 1;
+    private static final int FLAG_WIDE = 1;
+    private static final int FLAG_SHORT = 2;
+    private static final int HEADER_BYTES = 64;
+
+    private GridFile() {}
+
+    /**
+     * Write {@code grid} to {@code file}, replacing it if it exists. The grid goes to
+     * a temporary file in the same directory that is then moved over {@code file},
+     * so a grid still mapped from the old file (even the one being written) keeps
+     * reading the old contents.
+     */
+    public static void write(GridModel grid, Path file) throws IOException {
+        TrafficStore traffic = grid.getTraffic();
+        int[][] destinations = grid.getDestinations();
+        int[][] stores = grid.getStores();
+        int[][] tunnels = grid.getTunnels();
+        int numTunnels = grid.getNumTunnels();
+
+        long trafficOffset = trafficOffset(destinations.length, stores.length, numTunnels);
+        ByteBuffer head = ByteBuffer.allocate((int) trafficOffset).order(ByteOrder.LITTLE_ENDIAN);
+        int width = traffic.bytesPerLevel();
+        int flags = width == Integer.BYTES ? FLAG_WIDE : width == Short.BYTES ? FLAG_SHORT : 0;
+        head.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(flags)
+            .putInt(grid.getRows()).putInt(grid.getCols())
+            .putInt(destinations.length).putInt(stores.length).putInt(numTunnels)
+            .putInt(traffic.maxLevel());
+        head.position(HEADER_BYTES);
+        for (int[] cell : destinations) head.putInt(cell[0]).putInt(cell[1]);
+        for (int[] cell : stores) head.putInt(cell[0]).putInt(cell[1]);
+        for (int i = 0; i < numTunnels * 2; i++) head.putInt(tunnels[i][0]).putInt(tunnels[i][1]);
+        head.clear();
+
+        Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName() + ".", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                while (head.hasRemaining()) {
+                    channel.write(head);
+                }
+                traffic.writeTo(channel);
+            }
+            setPermissions(tmp, file);
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+    }
+
+    // createTempFile makes the file owner-only; give it the permissions of the file it
+    // replaces, or the usual rw-r--r-- for a new one, so other users can still read it
+    private static void setPermissions(Path tmp, Path file) throws IOException {
+        PosixFileAttributeView view = Files.getFileAttributeView(tmp, PosixFileAttributeView.class);
+        if (view == null) {
+            return;
+        }
+        Set<PosixFilePermission> permissions = Files.exists(file)
+                ? Files.getPosixFilePermissions(file)
+                : PosixFilePermissions.fromString("rw-r--r--");
+        view.setPermissions(permissions);
+    }
+
+    /**
+     * Load a grid written by write(). The traffic stays in the mapping, which
+     * lives as long as the returned model; the file itself is closed.
+     *
+     * @throws GridFormatException if the file is not a valid grid file (offsets are in bytes)
+     */
+    public static GridModel load(Path file) throws IOException {
+        String input = file.toString();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new GridFormatException(input, size, "file too short for a grid header");
+            }
+            ByteBuffer header = read(channel, 0, HEADER_BYTES);
+            if (header.getInt(0) != MAGIC) {
+                throw new GridFormatException(input, 0, "not a grid file");
+            }
+            int version = header.getInt(4);
+            if (version != FORMAT_VERSION) {
+                throw new GridFormatException(input, 4, "unsupported format version " + version);
+            }
+            int flags = header.getInt(8);
+            if ((flags & FLAG_WIDE) != 0 && (flags & FLAG_SHORT) != 0) {
+                throw new GridFormatException(input, 8, "traffic flagged both int and short");
+            }
+            int width = (flags & FLAG_WIDE) != 0 ? Integer.BYTES : (flags & FLAG_SHORT) != 0 ? Short.BYTES : 1;
+            int rows = header.getInt(12);
+            int cols = header.getInt(16);
+            if (rows < 1 || cols < 1 || (long) rows * cols > Integer.MAX_VALUE / 2) {
+                throw new GridFormatException(input, 12, "invalid grid size " + rows + "x" + cols);
+            }
+            int numDestinations = header.getInt(20);
+            int numStores = header.getInt(24);
+            int numTunnels = header.getInt(28);
+            int maxLevel = header.getInt(32);
+            if (maxLevel < 0) {
+                throw new GridFormatException(input, 32, "negative max traffic level " + maxLevel);
+            }
+            if (numDestinations < 0 || numStores < 0 || numTunnels < 0
+                    || trafficOffset(numDestinations, numStores, numTunnels) > Integer.MAX_VALUE) {
+                throw new GridFormatException(input, 20, "invalid destination, store or tunnel count");
+            }
+
+            long trafficOffset = trafficOffset(numDestinations, numStores, numTunnels);
+            long trafficBytes = (long) rows * cols * 2 * width;
+            if (size != trafficOffset + trafficBytes) {
+                throw new GridFormatException(input, size, "expected " + (trafficOffset + trafficBytes)
+                        + " bytes for a " + rows + "x" + cols + " grid");
+            }
+
+            ByteBuffer lists = read(channel, HEADER_BYTES, (int) (trafficOffset - HEADER_BYTES));
+            int[][] destinations = readCells(lists, numDestinations, rows, cols, input);
+            int[][] stores = readCells(lists, numStores, rows, cols, input);
+            int[][] tunnels = readCells(lists, numTunnels * 2, rows, cols, input);
+
+            ByteBuffer[] chunks = new ByteBuffer[(int) ((trafficBytes + (1L << TrafficStore.CHUNK_BITS) - 1)
+                                                        >>> TrafficStore.CHUNK_BITS)];
+            for (int k = 0; k < chunks.length; k++) {
+                long from = (long) k << TrafficStore.CHUNK_BITS;
+                long length = Math.min(1L << TrafficStore.CHUNK_BITS, trafficBytes - from);
+                chunks[k] = channel.map(FileChannel.MapMode.READ_ONLY, trafficOffset + from, length);
+            }
+            TrafficStore traffic = TrafficStore.mapped(rows * cols, chunks, width, maxLevel);
+            return GridModel.of(rows, cols, traffic, destinations, stores, tunnels);
+        }
+    }
+
+    // Header plus cell lists, rounded up so the traffic starts 8-byte aligned
+    private static long trafficOffset(int numDestinations, int numStores, int numTunnels) {
+        long lists = (2L * numDestinations + 2L * numStores + 4L * numTunnels) * Integer.BYTES;
+        return (HEADER_BYTES + lists + 7) & ~7L;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        return buffer.flip();
+    }
+
+    // count (r, c) pairs from the list buffer, which starts at file offset HEADER_BYTES
+    private static int[][] readCells(ByteBuffer lists, int count, int rows, int cols, String input) {
+        int[][] cells = new int[count][2];
+        for (int i = 0; i < count; i++) {
+            int at = lists.position();
+            int r = lists.getInt();
+            int c = lists.getInt();
+            if (r < 0 || r >= rows || c < 0 || c >= cols) {
+                throw new GridFormatException(input, HEADER_BYTES + at, "cell " + r + "," + c + " is outside the grid");
+            }
+            cells[i][0] = r;
+            cells[i][1] = c;
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,25 @@
+package ai.proj;
+
+/**
+ * Malformed initialState or trafficString. The message names the input and the
+ * character offset at which parsing stopped.
+ */
+public class GridFormatException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String input;
+    private final long offset;
+
+    public GridFormatException(String input, long offset, String message) {
+        super(input + " at offset " + offset + ": " + message);
+        this.input = input;
+        this.offset = offset;
+    }
+
+    /** Which input was being read ("initialState", "trafficString", ...). */
+    public String getInput() { return input; }
+
+    /** Zero-based character offset of the offending character in that input. */
+    public long getOffset() { return offset; }
+}
@@ -1,164 +1,173 @@
 package ai.proj;
 
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.SplittableRandom;
 import java.util.random.RandomGenerator;
 
+/**
+ * Random grids, either small ones with the original defaults (GenGrid()) or
+ * reproducible ones of any size from a GridSpec (GenGrid(GridSpec)).
+ *
+ * Traffic goes into a packed TrafficStore that toGridModel() hands to the
+ * GridModel as is, so generating a 5000x5000 grid takes one pass over the
+ * edges and no text. The initialState / trafficString forms and the
+ * character grid are only built when asked for, and nothing is printed unless
+ * printGrid() is called.
+ */
 public class GridGenerator {
 
+    private GridSpec spec;
     private int rows;
     private int cols;
     private int numTunnels;
     private int numStores;
     private int numDestinations;
-    private int numObstacles;
 
-    private char[][] grid;
-    private int[][][] traffic;
+    // Per cell id (r * cols + c) and direction, 0 = blocked; shared with the GridModels made from it
+    private TrafficStore traffic;
     private int[][] tunnels;
     private int[][] stores;
     private int[][] destinations;
-    private int[][] obstacles;
 
+    // Built on first request
+    private char[][] grid;
     private String initialState;
     private String trafficString;
 
+    /** Small random grid: 5-10 rows/cols, 1-3 stores and tunnels, 1-10 destinations, traffic 1..4. */
     public void GenGrid() {
 
         RandomGenerator rand = RandomGenerator.getDefault();
 
-        this.rows = rand.nextInt(5, 11);
-        this.cols = rand.nextInt(5, 11);
-        this.numTunnels = rand.nextInt(1, 4);
-        this.numStores = rand.nextInt(1, 4);
-        this.numDestinations = rand.nextInt(1, 11);
+        int rows = rand.nextInt(5, 11);
+        int cols = rand.nextInt(5, 11);
+        double cells = rows * cols;
+
+        // Exact counts expressed as densities; the seed is kept so the grid can be reproduced
+        GenGrid(new GridSpec(rand.nextLong(), rows, cols,
+                rand.nextInt(1, 4) / cells,
+                rand.nextInt(1, 11) / cells,
+                rand.nextInt(1, 4) / cells,
+                rand.nextDouble(0, 0.125), 1, 4, GridSpec.CostDistribution.UNIFORM));
+    }
+
+    /** Grid described by {@code spec}; the same spec always gives the same grid. */
+    public void GenGrid(GridSpec spec) {
+
+        SplittableRandom rand = new SplittableRandom(spec.seed());
+
+        this.spec = spec;
+        this.rows = spec.rows();
+        this.cols = spec.cols();
+        this.numTunnels = spec.getNumTunnels();
+        this.numStores = spec.getNumStores();
+        this.numDestinations = spec.getNumDestinations();
 
-        this.grid = new char[rows][cols];
-        this.traffic = new int[rows][cols][2];
+        this.traffic = new TrafficStore(rows * cols);
         this.tunnels = new int[numTunnels * 2][2];
         this.stores = new int[numStores][2];
         this.destinations = new int[numDestinations][2];
-
-        this.numObstacles = rand.nextInt(1, (rows * cols) / 4);
-        this.obstacles = new int[numObstacles][2];
-
-        generateTunnels(rand);
-        generateStores(rand);
-        generateDestinations(rand);
-        normalizeGrid();
-        generateObstacles(rand);
+        this.grid = null;
+        this.initialState = null;
+        this.trafficString = null;
+
+        BitSet used = new BitSet(rows * cols);
+        generateTunnels(rand, used);
+        generateStores(rand, used);
+        generateDestinations(rand, used);
         generateTraffic(rand);
-        printGrid();
-
-        buildInitialState();
-        buildTrafficString();
     }
 
     // -------------------------
     //   GRID GENERATION STEPS
     // -------------------------
 
-    private void generateTunnels(RandomGenerator rand) {
-        for (int i = 0; i < numTunnels; i++) {
-
-            int r1 = rand.nextInt(0, rows);
-            int c1 = rand.nextInt(0, cols);
-            while (grid[r1][c1] != '\u0000') {
-                r1 = rand.nextInt(0, rows);
-                c1 = rand.nextInt(0, cols);
-            }
-
-            int r2 = rand.nextInt(0, rows);
-            int c2 = rand.nextInt(0, cols);
-            while (grid[r2][c2] != '\u0000' || (r1 == r2 && c1 == c2)) {
-                r2 = rand.nextInt(0, rows);
-                c2 = rand.nextInt(0, cols);
-            }
-
-            grid[r1][c1] = 'T';
-            grid[r2][c2] = 'T';
-
-            tunnels[i * 2][0] = r1;
-            tunnels[i * 2][1] = c1;
-            tunnels[i * 2 + 1][0] = r2;
-            tunnels[i * 2 + 1][1] = c2;
+    private void generateTunnels(RandomGenerator rand, BitSet used) {
+        for (int i = 0; i < numTunnels * 2; i++) {
+            placeCell(rand, used, tunnels[i]);
         }
     }
 
-    private void generateStores(RandomGenerator rand) {
+    private void generateStores(RandomGenerator rand, BitSet used) {
         for (int j = 0; j < numStores; j++) {
-            int r = rand.nextInt(0, rows);
-            int c = rand.nextInt(0, cols);
-
-            while (grid[r][c] != '\u0000') {
-                r = rand.nextInt(0, rows);
-                c = rand.nextInt(0, cols);
-            }
-
-            grid[r][c] = 'S';
-            stores[j][0] = r;
-            stores[j][1] = c;
+            placeCell(rand, used, stores[j]);
         }
     }
 
-    private void generateDestinations(RandomGenerator rand) {
+    private void generateDestinations(RandomGenerator rand, BitSet used) {
         for (int k = 0; k < numDestinations; k++) {
-            int r = rand.nextInt(0, rows);
-            int c = rand.nextInt(0, cols);
-
-            while (grid[r][c] != '\u0000') {
-                r = rand.nextInt(0, rows);
-                c = rand.nextInt(0, cols);
-            }
+            placeCell(rand, used, destinations[k]);
+        }
+    }
 
-            grid[r][c] = 'D';
-            destinations[k][0] = r;
-            destinations[k][1] = c;
+    // Random free cell into {r, c}
+    private void placeCell(RandomGenerator rand, BitSet used, int[] cell) {
+        int id = rand.nextInt(0, rows * cols);
+        while (used.get(id)) {
+            id = rand.nextInt(0, rows * cols);
         }
+        used.set(id);
+        cell[0] = id / cols;
+        cell[1] = id % cols;
     }
 
-    private void normalizeGrid() {
+    // Obstacles and traffic levels in one pass over the edges
+    private void generateTraffic(RandomGenerator rand) {
         for (int r = 0; r < rows; r++) {
             for (int c = 0; c < cols; c++) {
-                if (grid[r][c] == '\u0000') {
-                    grid[r][c] = '.';
+                int id = r * cols + c;
+                if (c + 1 < cols) {
+                    traffic.set(id, TrafficStore.RIGHT, edgeTraffic(rand));
+                }
+                if (r + 1 < rows) {
+                    traffic.set(id, TrafficStore.DOWN, edgeTraffic(rand));
                 }
             }
         }
     }
 
-    private void generateObstacles(RandomGenerator rand) {
-        for (int i = 0; i < numObstacles; i++) {
-            int r = rand.nextInt(0, rows);
-            int c = rand.nextInt(0, cols);
-
-            if (r == rows - 1) {
-                traffic[r][c][0] = Integer.MAX_VALUE;
-            } else if (c == cols - 1) {
-                traffic[r][c][1] = Integer.MAX_VALUE;
-            } else {
-                traffic[r][c][rand.nextInt(0, 2)] = Integer.MAX_VALUE;
-            }
-
-            obstacles[i][0] = r;
-            obstacles[i][1] = c;
+    private int edgeTraffic(RandomGenerator rand) {
+        if (spec.obstacleDensity() > 0 && rand.nextDouble() < spec.obstacleDensity()) {
+            return 0;
+        }
+        int min = spec.minTraffic();
+        int max = spec.maxTraffic();
+        int span = max - min + 1;
+        double u;
+        switch (spec.costDistribution()) {
+            case LOW:
+                u = rand.nextDouble();
+                return min + (int) (span * u * u);
+            case HIGH:
+                u = rand.nextDouble();
+                return max - (int) (span * u * u);
+            default:
+                return rand.nextInt(min, max + 1);
         }
     }
 
-    private void generateTraffic(RandomGenerator rand) {
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-
-                for (int d = 0; d < 2; d++) {
-                    if (traffic[r][c][d] != Integer.MAX_VALUE &&
-                        traffic[r][c][d] == 0) {
+    // -------------------------
+    //          OUTPUT
+    // -------------------------
 
-                        traffic[r][c][d] = rand.nextInt(1, 5);
-                    }
-                }
-            }
+    /**
+     * The generated grid as a GridModel (a new version on every call), or null if
+     * nothing was generated yet.
+     */
+    public GridModel toGridModel() {
+        if (traffic == null) {
+            return null;
         }
+        return GridModel.of(rows, cols, traffic, destinations, stores, tunnels);
     }
 
-    private void printGrid() {
+    /** Print the grid and its traffic to stdout ('X' = blocked). */
+    public void printGrid() {
+        if (traffic == null) {
+            return;
+        }
+        char[][] grid = getGrid();
         System.out.println(numDestinations + " " + numStores + " " + numTunnels);
 
         for (int r = 0; r < rows; r++) {
@@ -166,10 +175,8 @@ public class GridGenerator {
 
                 System.out.print(grid[r][c] + "-");
 
-                if (traffic[r][c][0] == Integer.MAX_VALUE)
-                    System.out.print("X");
-                else
-                    System.out.print(traffic[r][c][0]);
+                int t = traffic.get(r * cols + c, TrafficStore.RIGHT);
+                System.out.print(t == 0 ? "X" : String.valueOf(t));
 
                 System.out.print(">");
             }
@@ -178,16 +185,14 @@ public class GridGenerator {
             if (r == rows - 1) break;
 
             for (int c = 0; c < cols; c++) {
-                if (traffic[r][c][1] == Integer.MAX_VALUE)
-                    System.out.print("X   ");
-                else
-                    System.out.print(traffic[r][c][1] + "   ");
+                int t = traffic.get(r * cols + c, TrafficStore.DOWN);
+                System.out.print((t == 0 ? "X" : String.valueOf(t)) + "   ");
             }
             System.out.println();
         }
     }
 
-    private void buildInitialState() {
+    private String buildInitialState() {
         StringBuilder sb = new StringBuilder();
         sb.append(rows).append(';')
           .append(cols).append(';')
@@ -215,43 +220,66 @@ public class GridGenerator {
               .append(tunnels[i * 2 + 1][1]).append(';');
         }
 
-        this.initialState = sb.toString();
+        return sb.toString();
     }
 
-    private void buildTrafficString() {
+    private String buildTrafficString() {
         StringBuilder sb = new StringBuilder();
 
         for (int r = 0; r < rows; r++) {
             for (int c = 0; c < cols; c++) {
+                int id = r * cols + c;
 
                 if (c + 1 < cols) {
-                    int t = traffic[r][c][0] == Integer.MAX_VALUE ? 0 : traffic[r][c][0];
                     sb.append(r).append(',').append(c).append(',')
                       .append(r).append(',').append(c + 1).append(',')
-                      .append(t).append(';');
+                      .append(traffic.get(id, TrafficStore.RIGHT)).append(';');
                 }
 
                 if (r + 1 < rows) {
-                    int t = traffic[r][c][1] == Integer.MAX_VALUE ? 0 : traffic[r][c][1];
                     sb.append(r).append(',').append(c).append(',')
                       .append(r + 1).append(',').append(c).append(',')
-                      .append(t).append(';');
+                      .append(traffic.get(id, TrafficStore.DOWN)).append(';');
                 }
             }
         }
 
-        this.trafficString = sb.toString();
+        return sb.toString();
+    }
+
+    private char[][] buildGrid() {
+        char[][] grid = new char[rows][cols];
+        for (char[] row : grid) {
+            Arrays.fill(row, '.');
+        }
+        for (int[] t : tunnels) grid[t[0]][t[1]] = 'T';
+        for (int[] s : stores) grid[s[0]][s[1]] = 'S';
+        for (int[] d : destinations) grid[d[0]][d[1]] = 'D';
+        return grid;
     }
 
     // -------------------------
     //          GETTERS
     // -------------------------
 
-    public String getInitialState() { return initialState; }
-    public String getTrafficString() { return trafficString; }
+    public String getInitialState() {
+        if (initialState == null && traffic != null) initialState = buildInitialState();
+        return initialState;
+    }
+
+    public String getTrafficString() {
+        if (trafficString == null && traffic != null) trafficString = buildTrafficString();
+        return trafficString;
+    }
+
+    public char[][] getGrid() {
+        if (grid == null && traffic != null) grid = buildGrid();
+        return grid;
+    }
+
+    public GridSpec getSpec() { return spec; }
     public int[][] getStores() { return stores; }
     public int[][] getDestinations() { return destinations; }
-    public char[][] getGrid() { return grid; }
     public int[][] getTunnels() { return tunnels; }
 
     public int getRows() { return rows; }
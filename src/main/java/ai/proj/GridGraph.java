@@ -0,0 +1,271 @@
+package ai.proj;
+
+import java.util.Arrays;
+
+/**
+ * Compact, read-only graph view of a delivery grid.
+ *
+ * Cells are addressed by dense int ids ({@code id = row * cols + col}). The
+ * grid moves are not materialised: the moves of a cell are derived on demand
+ * from its TrafficStore entries, and the few tunnel moves sit in a small index
+ * sorted by source cell, with a bitmask of the cells that have any. The graph
+ * costs only the bitmask on top of the traffic, so grids of 10^8 cells fit in
+ * memory. Searches iterate moves through {@link #successors} into caller-owned
+ * buffers, in tie-breaker order, so expanding a node allocates nothing.
+ */
+public final class GridGraph {
+
+    // Canonical action codes, used as indices into ACTION_NAMES
+    public static final int UP = 0;
+    public static final int DOWN = 1;
+    public static final int LEFT = 2;
+    public static final int RIGHT = 3;
+    public static final int TUNNEL = 4;
+
+    public static final String[] ACTION_NAMES = {"up", "down", "left", "right", "tunnel"};
+
+    private final int rows;
+    private final int cols;
+    private final TrafficStore traffic;
+    // Action codes in tie-breaker order; canonical = UP, DOWN, LEFT, RIGHT, TUNNEL
+    private final int[] order;
+    private final boolean canonicalOrder;
+
+    // Tunnel moves sorted by source cell (tunnel order within a cell); mask bit set = cell has some
+    private final long[] tunnelMask;
+    private final int[] tunnelFrom;
+    private final int[] tunnelTo;
+    private final int[] tunnelCost;
+
+    private final int maxDegree;
+    private final int maxCost;
+
+    private GridGraph(int rows, int cols, TrafficStore traffic, int[] order, long[] tunnelMask,
+                      int[] tunnelFrom, int[] tunnelTo, int[] tunnelCost, int maxTunnelDegree, int maxTunnelCost) {
+        this.rows = rows;
+        this.cols = cols;
+        this.traffic = traffic;
+        this.order = order;
+        this.canonicalOrder = Arrays.equals(order, new int[]{UP, DOWN, LEFT, RIGHT, TUNNEL});
+        this.tunnelMask = tunnelMask;
+        this.tunnelFrom = tunnelFrom;
+        this.tunnelTo = tunnelTo;
+        this.tunnelCost = tunnelCost;
+        this.maxDegree = 4 + maxTunnelDegree;
+        this.maxCost = Math.max(traffic.maxLevel(), maxTunnelCost);
+    }
+
+    /**
+     * Build the graph over parsed grid data; {@code traffic} is kept, not copied.
+     *
+     * @param traffic level of the edge right of / below every cell (0 = blocked)
+     * @param tunnels tunnel entrances, pair i stored at rows 2i and 2i+1
+     * @param tieBreakerOrder order in which moves of a cell are emitted
+     */
+    public static GridGraph build(int rows, int cols, TrafficStore traffic, int[][] tunnels, int numTunnels,
+                                  String[] tieBreakerOrder) {
+        if (traffic.cellCount() != rows * cols) {
+            throw new IllegalArgumentException("Traffic store has " + traffic.cellCount()
+                    + " cells, grid has " + rows * cols);
+        }
+        int[] order = new int[tieBreakerOrder.length];
+        for (int i = 0; i < tieBreakerOrder.length; i++) {
+            order[i] = actionCode(tieBreakerOrder[i]);
+        }
+
+        // Both directions of every tunnel, keyed (source cell, move number) so a stable order falls out of the sort
+        long[] keys = new long[numTunnels * 2];
+        int[] to = new int[numTunnels * 2];
+        int[] cost = new int[numTunnels * 2];
+        int maxTunnelCost = 0;
+        for (int i = 0; i < numTunnels; i++) {
+            int r1 = tunnels[i * 2][0], c1 = tunnels[i * 2][1];
+            int r2 = tunnels[i * 2 + 1][0], c2 = tunnels[i * 2 + 1][1];
+            int manhattanCost = Math.abs(r1 - r2) + Math.abs(c1 - c2);
+            to[i * 2] = r2 * cols + c2;
+            to[i * 2 + 1] = r1 * cols + c1;
+            cost[i * 2] = cost[i * 2 + 1] = manhattanCost;
+            keys[i * 2] = ((long) (r1 * cols + c1) << 32) | (i * 2);
+            keys[i * 2 + 1] = ((long) (r2 * cols + c2) << 32) | (i * 2 + 1);
+            maxTunnelCost = Math.max(maxTunnelCost, manhattanCost);
+        }
+        Arrays.sort(keys);
+
+        long[] mask = numTunnels == 0 ? null : new long[(rows * cols + 63) >>> 6];
+        int[] tunnelFrom = new int[keys.length];
+        int[] tunnelTo = new int[keys.length];
+        int[] tunnelCost = new int[keys.length];
+        int maxTunnelDegree = 0;
+        for (int k = 0, run = 0; k < keys.length; k++) {
+            int from = (int) (keys[k] >>> 32);
+            int move = (int) keys[k];
+            tunnelFrom[k] = from;
+            tunnelTo[k] = to[move];
+            tunnelCost[k] = cost[move];
+            mask[from >>> 6] |= 1L << from;
+            run = (k > 0 && tunnelFrom[k - 1] == from) ? run + 1 : 1;
+            maxTunnelDegree = Math.max(maxTunnelDegree, run);
+        }
+
+        return new GridGraph(rows, cols, traffic, order, mask, tunnelFrom, tunnelTo, tunnelCost,
+                             maxTunnelDegree, maxTunnelCost);
+    }
+
+    /**
+     * The same grid over other traffic (same size), sharing the tunnel index.
+     * Blocking or opening an edge needs nothing more than a new traffic store.
+     */
+    public GridGraph withTraffic(TrafficStore updated) {
+        if (updated.cellCount() != traffic.cellCount()) {
+            throw new IllegalArgumentException("Traffic store has " + updated.cellCount()
+                    + " cells, grid has " + traffic.cellCount());
+        }
+        int maxTunnelCost = 0;
+        for (int c : tunnelCost) maxTunnelCost = Math.max(maxTunnelCost, c);
+        return new GridGraph(rows, cols, updated, order, tunnelMask, tunnelFrom, tunnelTo, tunnelCost,
+                             maxDegree - 4, maxTunnelCost);
+    }
+
+    private static int actionCode(String action) {
+        for (int i = 0; i < ACTION_NAMES.length; i++) {
+            if (ACTION_NAMES[i].equals(action)) return i;
+        }
+        throw new IllegalArgumentException("Unknown action: " + action);
+    }
+
+    /**
+     * Copy the moves of {@code cell} into the given buffers (each at least
+     * {@link #maxDegree()} long), in tie-breaker order.
+     *
+     * @return number of moves written
+     */
+    public int successors(int cell, int[] outTargets, int[] outCosts, byte[] outActions) {
+        int r = cell / cols;
+        int c = cell - r * cols;
+        int n = 0;
+        if (canonicalOrder) {
+            // The shared GridModel graph: straight-line up, down, left, right, tunnel
+            int cost;
+            if (r > 0 && (cost = traffic.get(cell - cols, TrafficStore.DOWN)) > 0) {
+                outTargets[n] = cell - cols; outCosts[n] = cost; outActions[n++] = UP;
+            }
+            if (r + 1 < rows && (cost = traffic.get(cell, TrafficStore.DOWN)) > 0) {
+                outTargets[n] = cell + cols; outCosts[n] = cost; outActions[n++] = DOWN;
+            }
+            if (c > 0 && (cost = traffic.get(cell - 1, TrafficStore.RIGHT)) > 0) {
+                outTargets[n] = cell - 1; outCosts[n] = cost; outActions[n++] = LEFT;
+            }
+            if (c + 1 < cols && (cost = traffic.get(cell, TrafficStore.RIGHT)) > 0) {
+                outTargets[n] = cell + 1; outCosts[n] = cost; outActions[n++] = RIGHT;
+            }
+            return tunnelMask == null ? n : tunnels(cell, n, outTargets, outCosts, outActions);
+        }
+        for (int action : order) {
+            int cost;
+            switch (action) {
+                case UP:
+                    if (r > 0 && (cost = traffic.get(cell - cols, TrafficStore.DOWN)) > 0) {
+                        outTargets[n] = cell - cols; outCosts[n] = cost; outActions[n++] = UP;
+                    }
+                    break;
+                case DOWN:
+                    if (r + 1 < rows && (cost = traffic.get(cell, TrafficStore.DOWN)) > 0) {
+                        outTargets[n] = cell + cols; outCosts[n] = cost; outActions[n++] = DOWN;
+                    }
+                    break;
+                case LEFT:
+                    if (c > 0 && (cost = traffic.get(cell - 1, TrafficStore.RIGHT)) > 0) {
+                        outTargets[n] = cell - 1; outCosts[n] = cost; outActions[n++] = LEFT;
+                    }
+                    break;
+                case RIGHT:
+                    if (c + 1 < cols && (cost = traffic.get(cell, TrafficStore.RIGHT)) > 0) {
+                        outTargets[n] = cell + 1; outCosts[n] = cost; outActions[n++] = RIGHT;
+                    }
+                    break;
+                case TUNNEL:
+                    if (tunnelMask != null) n = tunnels(cell, n, outTargets, outCosts, outActions);
+                    break;
+            }
+        }
+        return n;
+    }
+
+    // Append the tunnel moves of cell at out[n..]; returns the new count
+    private int tunnels(int cell, int n, int[] outTargets, int[] outCosts, byte[] outActions) {
+        if ((tunnelMask[cell >>> 6] & (1L << cell)) == 0) return n;
+        // Lower bound of cell in tunnelFrom
+        int lo = 0, hi = tunnelFrom.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (tunnelFrom[mid] < cell) lo = mid + 1; else hi = mid;
+        }
+        for (int k = lo; k < tunnelFrom.length && tunnelFrom[k] == cell; k++) {
+            outTargets[n] = tunnelTo[k]; outCosts[n] = tunnelCost[k]; outActions[n++] = TUNNEL;
+        }
+        return n;
+    }
+
+    /**
+     * Copy the moves that end in {@code cell} into the given buffers: the source
+     * cell, the step cost and the action taken at the source.
+     *
+     * Every traffic entry is the cost of one undirected edge (the RIGHT level of
+     * (r,c) is paid both moving right from (r,c) and left from (r,c+1), likewise
+     * for DOWN vertically) and tunnels cost the same in both directions, so the
+     * incoming moves of a cell are its outgoing moves reversed.
+     *
+     * @return number of moves written
+     */
+    public int predecessors(int cell, int[] outSources, int[] outCosts, byte[] outActions) {
+        int n = successors(cell, outSources, outCosts, outActions);
+        for (int i = 0; i < n; i++) {
+            outActions[i] = (byte) opposite(outActions[i]);
+        }
+        return n;
+    }
+
+    /** Action that undoes the given move (a tunnel is its own inverse). */
+    public static int opposite(int action) {
+        switch (action) {
+            case UP: return DOWN;
+            case DOWN: return UP;
+            case LEFT: return RIGHT;
+            case RIGHT: return LEFT;
+            default: return action;
+        }
+    }
+
+    public int id(int row, int col) { return row * cols + col; }
+    public int row(int id) { return id / cols; }
+    public int col(int id) { return id % cols; }
+
+    public int getRows() { return rows; }
+    public int getCols() { return cols; }
+    public int cellCount() { return rows * cols; }
+    /** Number of moves (directed), counted by a scan over the traffic. */
+    public long edgeCount() {
+        long edges = tunnelFrom.length;
+        for (int cell = 0, cells = rows * cols; cell < cells; cell++) {
+            if (cell % cols + 1 < cols && traffic.get(cell, TrafficStore.RIGHT) > 0) edges += 2;
+            if (cell / cols + 1 < rows && traffic.get(cell, TrafficStore.DOWN) > 0) edges += 2;
+        }
+        return edges;
+    }
+    /** Upper bound on the moves of one cell: the four grid moves plus its tunnels. */
+    public int maxDegree() { return maxDegree; }
+    /** At least the largest single step cost, tunnels included. */
+    public int maxCost() { return maxCost; }
+
+    public static String actionName(int action) { return ACTION_NAMES[action]; }
+
+    /** Render action codes as the comma-separated action names used in plan strings. */
+    public static String joinActions(byte[] codes) {
+        StringBuilder sb = new StringBuilder(codes.length * 6);
+        for (int i = 0; i < codes.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(ACTION_NAMES[codes[i]]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,164 @@
+package ai.proj;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Immutable, parsed form of a grid (initialState + trafficString).
+ *
+ * A grid is parsed once, when it is generated or loaded, and the same instance
+ * is handed by reference to every GenericSearch that plans on it. All fields are
+ * final and the arrays are never written after construction, so one model can
+ * be shared freely between threads. The arrays and the TrafficStore are exposed
+ * without copying; callers must treat them as read-only.
+ */
+public final class GridModel {
+
+    // Move order used for the shared successor graph (see GenericSearch.tieBreakerOrder)
+    static final String[] TIE_BREAKER_ORDER = {"up", "down", "left", "right", "tunnel"};
+
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private final long version;
+    private final int rows;
+    private final int cols;
+    private final TrafficStore traffic;
+    private final int[][] destinations;
+    private final int[][] stores;
+    private final int[][] tunnels;
+    private final int numTunnels;
+    private final GridGraph graph;
+
+    private GridModel(int rows, int cols, TrafficStore traffic, int[][] destinations, int[][] stores,
+                      int[][] tunnels, int numTunnels) {
+        this(rows, cols, traffic, destinations, stores, tunnels, numTunnels,
+             GridGraph.build(rows, cols, traffic, tunnels, numTunnels, TIE_BREAKER_ORDER));
+    }
+
+    private GridModel(int rows, int cols, TrafficStore traffic, int[][] destinations, int[][] stores,
+                      int[][] tunnels, int numTunnels, GridGraph graph) {
+        this.version = VERSIONS.incrementAndGet();
+        this.rows = rows;
+        this.cols = cols;
+        this.traffic = traffic;
+        this.destinations = destinations;
+        this.stores = stores;
+        this.tunnels = tunnels;
+        this.numTunnels = numTunnels;
+        this.graph = graph;
+    }
+
+    /**
+     * Parse the textual grid format (see GridParser).
+     *
+     * @param initialState m;n;P;S;CustomerX_1,CustomerY_1,...;StoreX_1,StoreY_1,...;TunnelX_1,TunnelY_1,TunnelX_2,TunnelY_2;...
+     * @param trafficString SrcX_1,SrcY_1,DstX_1,DstY_1,Traffic_1;...
+     * @throws GridFormatException if either string is malformed
+     */
+    public static GridModel parse(String initialState, String trafficString) {
+        return GridParser.parse(initialState, trafficString);
+    }
+
+    /**
+     * Grid built directly from its parts, e.g. by GridGenerator or GridParser; the
+     * store and arrays are kept, not copied, and must not be written afterwards.
+     *
+     * @param traffic level of the edge right of / below every cell, 0 = blocked
+     * @param tunnels tunnel entrances, the two ends of tunnel i at 2i and 2i + 1
+     */
+    public static GridModel of(int rows, int cols, TrafficStore traffic, int[][] destinations, int[][] stores,
+                               int[][] tunnels) {
+        return new GridModel(rows, cols, traffic, destinations, stores, tunnels, tunnels.length / 2);
+    }
+
+    /**
+     * Copy of this grid with some traffic levels changed, under a new version; this
+     * model is left untouched. The new traffic store shares this grid's levels and
+     * only records the changed edges (see TrafficStore.withChanges), so a small
+     * change costs about as much on a 10000x10000 or mapped grid as on a small one.
+     * The graph, a view over it, shares everything else, whether or not an edge
+     * becomes blocked or open.
+     *
+     * @param changes {r, c, dir, level}: dir 0 = edge to (r, c+1), 1 = edge to (r+1, c); level 0 = blocked
+     */
+    public GridModel withTraffic(int[][] changes) {
+        int[] edges = new int[changes.length];
+        int[] levels = new int[changes.length];
+        for (int k = 0; k < changes.length; k++) {
+            int r = changes[k][0], c = changes[k][1], dir = changes[k][2], level = changes[k][3];
+            if (r < 0 || r >= rows || c < 0 || c >= cols || dir < 0 || dir > 1
+                    || (dir == 0 && c + 1 >= cols) || (dir == 1 && r + 1 >= rows) || level < 0) {
+                throw new IllegalArgumentException("Invalid traffic change: " + r + "," + c + " dir=" + dir + " level=" + level);
+            }
+            edges[k] = (r * cols + c) * 2 + dir;
+            levels[k] = level;
+        }
+        TrafficStore updated = traffic.withChanges(edges, levels);
+        return new GridModel(rows, cols, updated, destinations, stores, tunnels, numTunnels, graph.withTraffic(updated));
+    }
+
+    /**
+     * Parse traffic changes in the trafficString format ("SrcX,SrcY,DstX,DstY,Traffic;...")
+     * into withTraffic() entries. The two cells may be given in either order.
+     */
+    public static int[][] parseTrafficChanges(String changes) {
+        return GridParser.parseTrafficChanges(changes);
+    }
+
+    /** This grid's cells in the initialState format. */
+    public String renderInitialState() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(rows).append(';').append(cols).append(';')
+          .append(destinations.length).append(';').append(stores.length).append(';');
+        appendCells(sb, destinations);
+        sb.append(';');
+        appendCells(sb, stores);
+        sb.append(';');
+        for (int i = 0; i < numTunnels; i++) {
+            sb.append(tunnels[i * 2][0]).append(',').append(tunnels[i * 2][1]).append(',')
+              .append(tunnels[i * 2 + 1][0]).append(',').append(tunnels[i * 2 + 1][1]).append(';');
+        }
+        return sb.toString();
+    }
+
+    private static void appendCells(StringBuilder sb, int[][] cells) {
+        for (int i = 0; i < cells.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(cells[i][0]).append(',').append(cells[i][1]);
+        }
+    }
+
+    /** Traffic of this grid in the trafficString format (0 = blocked). */
+    public String renderTraffic() {
+        StringBuilder sb = new StringBuilder(rows * cols * 20);
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (c + 1 < cols) {
+                    sb.append(r).append(',').append(c).append(',')
+                      .append(r).append(',').append(c + 1).append(',')
+                      .append(traffic.get(r * cols + c, TrafficStore.RIGHT)).append(';');
+                }
+                if (r + 1 < rows) {
+                    sb.append(r).append(',').append(c).append(',')
+                      .append(r + 1).append(',').append(c).append(',')
+                      .append(traffic.get(r * cols + c, TrafficStore.DOWN)).append(';');
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    /** Unique, increasing id of this grid; a new grid or any change to one gets a new version. */
+    public long getVersion() { return version; }
+    public int getRows() { return rows; }
+    public int getCols() { return cols; }
+    public int getNumDestinations() { return destinations.length; }
+    public int getNumStores() { return stores.length; }
+    public int getNumTunnels() { return numTunnels; }
+
+    // Shared, read-only arrays
+    public TrafficStore getTraffic() { return traffic; }
+    public int[][] getDestinations() { return destinations; }
+    public int[][] getStores() { return stores; }
+    public int[][] getTunnels() { return tunnels; }
+    public GridGraph getGraph() { return graph; }
+}
@@ -0,0 +1,310 @@
+package ai.proj;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Single-pass parser for the initialState and trafficString formats.
+ *
+ * Characters are read through one fixed buffer, straight from a CharSequence or
+ * a Reader, and numbers are accumulated digit by digit into the grid's arrays;
+ * no String is created per entry, so load time and garbage stay linear in the
+ * input with a constant-size buffer on top. Whitespace between tokens is
+ * ignored. Anything else that does not fit the format (missing separators,
+ * wrong counts, cells outside the grid, non-adjacent traffic cells) raises a
+ * GridFormatException with the offset of the offending character.
+ */
+public final class GridParser {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int END = -1;
+
+    // Name of the input, for error messages
+    private final String input;
+    // Exactly one of these is the source
+    private final CharSequence chars;
+    private final Reader reader;
+
+    private final char[] buffer;
+    private int pos;
+    private int limit;
+    // Characters consumed before buffer[0]; also the read position in chars
+    private long bufferStart;
+    private long tokenStart;
+
+    private GridParser(String input, CharSequence chars, Reader reader) {
+        this.input = input;
+        this.chars = chars;
+        this.reader = reader;
+        int size = chars != null ? Math.max(1, Math.min(BUFFER_SIZE, chars.length())) : BUFFER_SIZE;
+        this.buffer = new char[size];
+    }
+
+    /**
+     * Parse a grid.
+     *
+     * @param initialState m;n;P;S;CustomerX_1,CustomerY_1,...;StoreX_1,StoreY_1,...;TunnelX_1,TunnelY_1,TunnelX_2,TunnelY_2;...
+     * @param trafficString SrcX_1,SrcY_1,DstX_1,DstY_1,Traffic_1;... (null or empty: every edge blocked)
+     * @throws GridFormatException if either input is malformed
+     */
+    public static GridModel parse(CharSequence initialState, CharSequence trafficString) {
+        try {
+            return parse(new GridParser("initialState", initialState, null),
+                         trafficString == null ? null : new GridParser("trafficString", trafficString, null));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // CharSequence input does no I/O
+        }
+    }
+
+    /** Parse a grid from two readers; they are read to the end but not closed. */
+    public static GridModel parse(Reader initialState, Reader trafficString) throws IOException {
+        return parse(new GridParser("initialState", null, initialState),
+                     trafficString == null ? null : new GridParser("trafficString", null, trafficString));
+    }
+
+    /**
+     * Traffic changes in the trafficString format as GridModel.withTraffic() entries
+     * {r, c, dir, level}. The two cells of an entry may be given in either order.
+     */
+    public static int[][] parseTrafficChanges(CharSequence changes) {
+        GridParser parser = new GridParser("changes", changes, null);
+        int[] parsed = new int[64];
+        int count = 0;
+        try {
+            while (parser.nextEntry()) {
+                if (count + 4 > parsed.length) parsed = Arrays.copyOf(parsed, parsed.length * 2);
+                count = parser.readEdge(parsed, count, Integer.MAX_VALUE, Integer.MAX_VALUE);
+                parser.endEntry();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int[][] result = new int[count / 4][];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = Arrays.copyOfRange(parsed, i * 4, i * 4 + 4);
+        }
+        return result;
+    }
+
+    private static GridModel parse(GridParser init, GridParser traffic) throws IOException {
+        int rows = init.readInt("rows");
+        init.expect(';');
+        int cols = init.readInt("cols");
+        init.expect(';');
+        if (rows < 1 || cols < 1 || (long) rows * cols > Integer.MAX_VALUE / 2) {
+            throw init.error("invalid grid size " + rows + "x" + cols);
+        }
+        int numDestinations = init.readInt("destination count");
+        init.expect(';');
+        int numStores = init.readInt("store count");
+        if ((long) numDestinations + numStores > (long) rows * cols) {
+            throw init.error(numDestinations + " destinations and " + numStores + " stores do not fit in the grid");
+        }
+        init.expect(';');
+
+        int[][] destinations = init.readCells(numDestinations, rows, cols, "destination");
+        init.expect(';');
+        int[][] stores = init.readCells(numStores, rows, cols, "store");
+
+        // Tunnels: one "r1,c1,r2,c2" per section until the end
+        int[] ends = new int[16];
+        int numTunnels = 0;
+        if (!init.atEnd()) {
+            init.expect(';');
+            while (init.nextEntry()) {
+                if ((numTunnels + 1) * 4 > ends.length) ends = Arrays.copyOf(ends, ends.length * 2);
+                for (int k = 0; k < 4; k += 2) {
+                    if (k > 0) init.expect(',');
+                    ends[numTunnels * 4 + k] = init.readCoordinate(rows, "tunnel row");
+                    init.expect(',');
+                    ends[numTunnels * 4 + k + 1] = init.readCoordinate(cols, "tunnel column");
+                }
+                numTunnels++;
+                init.endEntry();
+            }
+        }
+        int[][] tunnels = new int[numTunnels * 2][];
+        for (int i = 0; i < tunnels.length; i++) {
+            tunnels[i] = new int[]{ends[i * 2], ends[i * 2 + 1]};
+        }
+
+        // Traffic per cell id and direction (RIGHT / DOWN), 0 = blocked
+        TrafficStore levels = new TrafficStore(rows * cols);
+        if (traffic != null) {
+            int[] edge = new int[4];
+            while (traffic.nextEntry()) {
+                traffic.readEdge(edge, 0, rows, cols);
+                levels.set(edge[0] * cols + edge[1], edge[2], edge[3]);
+                traffic.endEntry();
+            }
+        }
+
+        return GridModel.of(rows, cols, levels, destinations, stores, tunnels);
+    }
+
+    // -------------------------
+    //        SECTIONS
+    // -------------------------
+
+    // count "r,c" pairs separated by ','
+    private int[][] readCells(int count, int rows, int cols, String what) throws IOException {
+        int[][] cells = new int[count][2];
+        for (int i = 0; i < count; i++) {
+            if (i > 0) expect(',');
+            cells[i][0] = readCoordinate(rows, what + " row");
+            expect(',');
+            cells[i][1] = readCoordinate(cols, what + " column");
+        }
+        if (peekToken() == ',') {
+            tokenStart = bufferStart + pos;
+            throw error("more than " + count + " " + what + " cell(s)");
+        }
+        return cells;
+    }
+
+    /**
+     * One "x1,y1,x2,y2,level" entry as {r, c, dir, level} at out[at..at+3], oriented
+     * from its top/left cell; cells must lie in rows x cols.
+     *
+     * @return at + 4
+     */
+    private int readEdge(int[] out, int at, int rows, int cols) throws IOException {
+        int x1 = readCoordinate(rows, "source row");
+        long entryStart = tokenStart;
+        expect(',');
+        int y1 = readCoordinate(cols, "source column");
+        expect(',');
+        int x2 = readCoordinate(rows, "target row");
+        expect(',');
+        int y2 = readCoordinate(cols, "target column");
+        expect(',');
+        int level = readInt("traffic level");
+        if (x2 < x1 || (x2 == x1 && y2 < y1)) {
+            int t = x1; x1 = x2; x2 = t;
+            t = y1; y1 = y2; y2 = t;
+        }
+        int dir;
+        if (x2 == x1 && y2 == y1 + 1) {
+            dir = 0;
+        } else if (x2 == x1 + 1 && y2 == y1) {
+            dir = 1;
+        } else {
+            tokenStart = entryStart;
+            throw error("cells " + x1 + "," + y1 + " and " + x2 + "," + y2 + " are not adjacent");
+        }
+        out[at] = x1;
+        out[at + 1] = y1;
+        out[at + 2] = dir;
+        out[at + 3] = level;
+        return at + 4;
+    }
+
+    // Skip empty ';'-separated entries; false at the end of the input
+    private boolean nextEntry() throws IOException {
+        int c;
+        while ((c = peekToken()) == ';') pos++;
+        return c != END;
+    }
+
+    // An entry ends with ';' or the end of the input
+    private void endEntry() throws IOException {
+        if (peekToken() != END) expect(';');
+    }
+
+    // -------------------------
+    //         TOKENS
+    // -------------------------
+
+    private int readCoordinate(int bound, String what) throws IOException {
+        int value = readInt(what);
+        if (value >= bound) {
+            throw error(what + " " + value + " is outside the grid (< " + bound + ")");
+        }
+        return value;
+    }
+
+    // Non-negative decimal int
+    private int readInt(String what) throws IOException {
+        int c = peekToken();
+        tokenStart = bufferStart + pos;
+        if (c < '0' || c > '9') {
+            throw error("expected " + what + " but found " + describe(c));
+        }
+        int value = 0;
+        while (c >= '0' && c <= '9') {
+            int digit = c - '0';
+            if (value > (Integer.MAX_VALUE - digit) / 10) {
+                throw error(what + " is too large");
+            }
+            value = value * 10 + digit;
+            pos++;
+            c = peek();
+        }
+        return value;
+    }
+
+    private void expect(char separator) throws IOException {
+        int c = peekToken();
+        if (c != separator) {
+            tokenStart = bufferStart + pos;
+            throw error("expected '" + separator + "' but found " + describe(c));
+        }
+        pos++;
+    }
+
+    private boolean atEnd() throws IOException {
+        return peekToken() == END;
+    }
+
+    // Next character after any whitespace, not consumed
+    private int peekToken() throws IOException {
+        int c = peek();
+        while (c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+            pos++;
+            c = peek();
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (pos == limit && !fill()) {
+            return END;
+        }
+        return buffer[pos];
+    }
+
+    private boolean fill() throws IOException {
+        bufferStart += limit;
+        pos = 0;
+        limit = 0;
+        if (reader != null) {
+            int n;
+            do {
+                n = reader.read(buffer, 0, buffer.length);
+            } while (n == 0);
+            if (n > 0) limit = n;
+        } else {
+            int from = (int) bufferStart;
+            int n = Math.min(buffer.length, chars.length() - from);
+            if (n > 0) {
+                if (chars instanceof String s) {
+                    s.getChars(from, from + n, buffer, 0);
+                } else {
+                    for (int i = 0; i < n; i++) buffer[i] = chars.charAt(from + i);
+                }
+                limit = n;
+            }
+        }
+        return limit > 0;
+    }
+
+    private static String describe(int c) {
+        return c == END ? "end of input" : "'" + (char) c + "'";
+    }
+
+    private GridFormatException error(String message) {
+        return new GridFormatException(input, tokenStart, message);
+    }
+}
@@ -0,0 +1,78 @@
+package ai.proj;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Function;
+
+/**
+ * Per-GridModel cache of preprocessing results (landmark tables, contraction
+ * hierarchies), held only as long as the grid is.
+ *
+ * The lock only guards the map: the first caller for a grid installs a
+ * FutureTask and runs it outside the lock, later callers for the same grid wait
+ * for that task, and callers for other grids are not held up at all. A
+ * computation that throws is dropped from the cache, so the next caller retries.
+ */
+final class GridPreprocessing<V> {
+
+    private final Map<GridModel, FutureTask<V>> cache = new WeakHashMap<>();
+    private final Function<GridModel, V> compute;
+
+    GridPreprocessing(Function<GridModel, V> compute) {
+        this.compute = compute;
+    }
+
+    /** Result for the grid, computing it on first use. */
+    V get(GridModel grid) {
+        FutureTask<V> task;
+        synchronized (cache) {
+            task = cache.get(grid);
+            if (task == null) {
+                // The task lets go of the grid once it has run, so the weak key can still be collected
+                task = new FutureTask<>(() -> compute.apply(grid));
+                cache.put(grid, task);
+            }
+        }
+        task.run(); // no-op if another thread has run or is running it
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return task.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    synchronized (cache) {
+                        cache.remove(grid, task);
+                    }
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException runtime) throw runtime;
+                    if (cause instanceof Error error) throw error;
+                    throw new IllegalStateException(cause);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** Result for the grid if it has been computed, otherwise null (also while it is being computed). */
+    V ifComputed(GridModel grid) {
+        FutureTask<V> task;
+        synchronized (cache) {
+            task = cache.get(grid);
+        }
+        if (task == null || !task.isDone()) {
+            return null;
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException | ExecutionException e) {
+            return null;
+        }
+    }
+}
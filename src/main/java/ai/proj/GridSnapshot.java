@@ -0,0 +1,82 @@
+package ai.proj;
+
+/**
+ * Immutable planning grid: the parsed GridModel plus its initialState and
+ * traffic strings. A snapshot made from a GridModel (generated grids, traffic
+ * changes) renders the strings only when they are first asked for, since the
+ * traffic string of a large grid is far bigger than the grid itself.
+ *
+ * DeliveryPlanner never changes a snapshot; generating a grid or changing its
+ * traffic publishes a new one (copy-on-write). A plan reads the current
+ * snapshot once and works on it without locks, even if a newer one is published
+ * meanwhile, and several sessions can hold the same snapshot together with
+ * everything cached per GridModel (heuristic tables, landmarks, hierarchies).
+ */
+public final class GridSnapshot {
+
+    private final GridModel grid;
+
+    // Given when parsed, otherwise rendered on first use; racing callers render equal strings
+    private volatile String initialState;
+    private volatile String trafficString;
+
+    // One shortest-path tree per store, built on first use; racing callers build identical trees
+    private volatile ShortestPathTree[] storeTrees;
+
+    private GridSnapshot(String initialState, String trafficString, GridModel grid) {
+        this.initialState = initialState;
+        this.trafficString = trafficString;
+        this.grid = grid;
+    }
+
+    /** Parse a grid given in the generator's initialState / trafficString format. */
+    public static GridSnapshot parse(String initialState, String trafficString) {
+        return new GridSnapshot(initialState, trafficString, GridModel.parse(initialState, trafficString));
+    }
+
+    /** Snapshot of a grid built without text, e.g. by GridGenerator.toGridModel(). */
+    public static GridSnapshot of(GridModel grid) {
+        return new GridSnapshot(null, null, grid);
+    }
+
+    /** New snapshot with some traffic levels changed (see GridModel.withTraffic); this one is untouched. */
+    public GridSnapshot withTraffic(int[][] changes) {
+        GridModel updated = grid.withTraffic(changes);
+        return new GridSnapshot(initialState, null, updated);
+    }
+
+    public String getInitialState() {
+        String s = this.initialState;
+        if (s == null) {
+            s = grid.renderInitialState();
+            this.initialState = s;
+        }
+        return s;
+    }
+
+    public String getTrafficString() {
+        String s = this.trafficString;
+        if (s == null) {
+            s = grid.renderTraffic();
+            this.trafficString = s;
+        }
+        return s;
+    }
+
+    public GridModel getGrid() { return grid; }
+
+    /** Shortest-path trees of every store, in store order. */
+    public ShortestPathTree[] storeTrees() {
+        ShortestPathTree[] trees = this.storeTrees;
+        if (trees == null) {
+            GridGraph graph = grid.getGraph();
+            int[][] stores = grid.getStores();
+            trees = new ShortestPathTree[stores.length];
+            for (int s = 0; s < trees.length; s++) {
+                trees[s] = ShortestPathTree.compute(graph, graph.id(stores[s][0], stores[s][1]));
+            }
+            this.storeTrees = trees;
+        }
+        return trees;
+    }
+}
@@ -0,0 +1,74 @@
+package ai.proj;
+
+/**
+ * Settings for GridGenerator.GenGrid(GridSpec): the same spec always gives the
+ * same grid.
+ *
+ * Store, destination and tunnel densities are fractions of the cells (a tunnel
+ * takes two), with at least one store and one destination. The obstacle density
+ * is the chance that an edge is blocked. Open edges get a traffic level in
+ * [minTraffic, maxTraffic] drawn from the cost distribution.
+ */
+public record GridSpec(long seed, int rows, int cols,
+                       double storeDensity, double destinationDensity, double tunnelDensity,
+                       double obstacleDensity, int minTraffic, int maxTraffic,
+                       CostDistribution costDistribution) {
+
+    /** How traffic levels are spread over [minTraffic, maxTraffic]. */
+    public enum CostDistribution {
+        UNIFORM,
+        /** Mostly light traffic: level = min + span * u^2 */
+        LOW,
+        /** Mostly heavy traffic: level = max - span * u^2 */
+        HIGH
+    }
+
+    // Levels above 255 widen the TrafficStore to two bytes per edge
+    public static final int MAX_TRAFFIC = 0xFFFF;
+
+    public GridSpec {
+        if (rows < 1 || cols < 1 || (long) rows * cols > Integer.MAX_VALUE / 2) {
+            throw new IllegalArgumentException("Invalid grid size: " + rows + "x" + cols);
+        }
+        checkDensity("storeDensity", storeDensity);
+        checkDensity("destinationDensity", destinationDensity);
+        checkDensity("tunnelDensity", tunnelDensity);
+        checkDensity("obstacleDensity", obstacleDensity);
+        if (minTraffic < 1 || maxTraffic < minTraffic || maxTraffic > MAX_TRAFFIC) {
+            throw new IllegalArgumentException("Traffic range must lie in 1.." + MAX_TRAFFIC
+                    + ": " + minTraffic + ".." + maxTraffic);
+        }
+        if (costDistribution == null) {
+            costDistribution = CostDistribution.UNIFORM;
+        }
+        // The fields are not assigned yet here, so count from the parameters
+        long cells = (long) rows * cols;
+        if ((long) count(storeDensity, rows, cols, 1) + count(destinationDensity, rows, cols, 1)
+                + 2L * count(tunnelDensity, rows, cols, 0) > cells) {
+            throw new IllegalArgumentException("Stores, destinations and tunnels do not fit in "
+                    + rows + "x" + cols + " cells");
+        }
+    }
+
+    /** Spec with the given seed and size, 3 stores, 8 destinations, traffic 1..4 and a tenth of the edges blocked. */
+    public static GridSpec of(long seed, int rows, int cols) {
+        double cells = (double) rows * cols;
+        return new GridSpec(seed, rows, cols, Math.min(1, 3 / cells), Math.min(1, 8 / cells),
+                Math.min(0.5, Math.max(1, Math.min(rows, cols) / 8) / cells), 0.1, 1, 4,
+                CostDistribution.UNIFORM);
+    }
+
+    public int getNumStores() { return count(storeDensity, rows, cols, 1); }
+    public int getNumDestinations() { return count(destinationDensity, rows, cols, 1); }
+    public int getNumTunnels() { return count(tunnelDensity, rows, cols, 0); }
+
+    private static int count(double density, int rows, int cols, int min) {
+        return (int) Math.max(min, Math.round(density * rows * cols));
+    }
+
+    private static void checkDensity(String name, double density) {
+        if (!(density >= 0 && density <= 1)) {
+            throw new IllegalArgumentException(name + " must lie in [0, 1]: " + density);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package ai.proj;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Small LRU of per-goal heuristic tables, keyed by (grid version, heuristic, goal).
+ *
+ * plan() searches every store towards the same destination in turn; the first
+ * search fills the table for that goal with heuristic.fillTable() and the other
+ * stores reuse it. Tables are int[cells] indexed by cell id and are never written
+ * after they are published, so searches on several threads can share them. The
+ * cache is bounded by total table size, dropping the least recently used first.
+ */
+final class HeuristicTables {
+
+    // Budget in table entries (4 bytes each): 16M ints = 64 MB
+    private static final long MAX_ENTRIES = 16L << 20;
+
+    private record Key(long gridVersion, Class<?> heuristic, int goal) {}
+
+    private static final LinkedHashMap<Key, int[]> CACHE = new LinkedHashMap<>(16, 0.75f, true);
+    private static long entries;
+
+    private HeuristicTables() {}
+
+    /**
+     * Table of h(cell) towards {@code goal} for a heuristic already prepared for
+     * {@code grid}, filling and caching it on first use.
+     */
+    static int[] forGoal(GridModel grid, heuristic h, int goal) {
+        Key key = new Key(grid.getVersion(), h.getClass(), goal);
+        synchronized (CACHE) {
+            int[] table = CACHE.get(key);
+            if (table != null) return table;
+        }
+
+        // Fill outside the lock; two threads racing on one goal just compute it twice
+        int cols = grid.getCols();
+        int[] table = h.fillTable(goal / cols, goal % cols, grid.getRows(), cols);
+
+        synchronized (CACHE) {
+            int[] previous = CACHE.putIfAbsent(key, table);
+            if (previous != null) return previous;
+            entries += table.length;
+            Iterator<int[]> eldest = CACHE.values().iterator();
+            while (entries > MAX_ENTRIES && CACHE.size() > 1) {
+                entries -= eldest.next().length;
+                eldest.remove();
+            }
+        }
+        return table;
+    }
+}
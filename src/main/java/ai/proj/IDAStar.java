@@ -0,0 +1,210 @@
+package ai.proj;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * IDA*: iterative deepening on f = g + h instead of on depth.
+ *
+ * Each iteration is a depth-first search that cuts every branch whose f exceeds
+ * the current threshold; the next threshold is the smallest f that was cut. With
+ * an admissible heuristic the first route found is optimal, whatever its length.
+ * The DFS runs on an explicit stack of cell ids with per-level successor buffers
+ * that are kept between searches, so a search allocates nothing once warm.
+ *
+ * A bounded, direct-mapped transposition table remembers the best g seen for a
+ * cell in the current iteration; reaching the cell again at no better g is
+ * pruned, which removes most of the re-expansions plain IDA* suffers on grids.
+ */
+public class IDAStar extends GenericSearch {
+
+    // Transposition table slots, at most 2^20 (12 MB); cells hash by their low bits
+    private static final int MAX_TABLE_BITS = 20;
+
+    private heuristic heuristicFunction;
+    private int[] heuristicTable;
+
+    // Explicit DFS stack: cell, g and the action that entered it, per depth
+    private int[] stackCell = new int[64];
+    private int[] stackG = new int[64];
+    private byte[] stackAction = new byte[64];
+    private int[] stackNext = new int[64];  // next successor to try
+    private int[] stackCount = new int[64]; // successors generated at this depth
+    // Successors of depth d live at [d * maxDegree, (d + 1) * maxDegree)
+    private int[] levelCells = new int[0];
+    private int[] levelCosts = new int[0];
+    private byte[] levelActions = new byte[0];
+    private BitSet onPath = new BitSet();
+
+    private int[] ttCell;
+    private int[] ttG;
+    private int[] ttIteration;
+    private int iteration;
+
+    // Outcome of the last boundedSearch()
+    private long cutoff;  // smallest f above the threshold, Long.MAX_VALUE if nothing was cut
+    private int expanded;
+
+    public IDAStar(int heuristicType) {
+        if (heuristicType == 1) {
+            this.heuristicFunction = new h1();
+        } else if (heuristicType == 2) {
+            this.heuristicFunction = new h2();
+        } else if (heuristicType == 3) {
+            this.heuristicFunction = new h3();
+        } else if (heuristicType == 4) {
+            this.heuristicFunction = new h4();
+        } else {
+            throw new IllegalArgumentException("Invalid heuristic type");
+        }
+    }
+
+    @Override
+    public String strategyKey() {
+        return super.strategyKey() + "/" + heuristicFunction.getClass().getSimpleName();
+    }
+
+    @Override
+    public void load(GridModel grid) {
+        super.load(grid);
+        this.heuristicFunction.prepare(grid);
+
+        int bits = Math.min(MAX_TABLE_BITS, 32 - Integer.numberOfLeadingZeros(Math.max(1, graph.cellCount() - 1)));
+        if (ttCell == null || ttCell.length != 1 << bits) {
+            ttCell = new int[1 << bits];
+            ttG = new int[1 << bits];
+            ttIteration = new int[1 << bits];
+            iteration = 0;
+        }
+    }
+
+    @Override
+    public PlanResult solve(String goalState) {
+        int goal = parseCell(goalState);
+        int start = startCell();
+        this.heuristicTable = HeuristicTables.forGoal(this.grid, this.heuristicFunction, goal);
+
+        int nodesExpanded = 0;
+        long threshold = heuristicTable[start];
+        while (true) {
+            if (++iteration == Integer.MAX_VALUE) {
+                Arrays.fill(ttIteration, 0);
+                iteration = 1;
+            }
+            int depth = boundedSearch(start, goal, threshold);
+            nodesExpanded += expanded;
+            if (depth >= 0) {
+                // The route to the goal is still on the stack
+                byte[] path = Arrays.copyOfRange(stackAction, 1, depth + 1);
+                return PlanResult.of(graph.row(start), graph.col(start), path, stackG[depth], nodesExpanded);
+            }
+            if (cutoff == Long.MAX_VALUE) {
+                return PlanResult.failure(nodesExpanded);
+            }
+            threshold = cutoff;
+        }
+    }
+
+    /**
+     * One f-bounded depth-first pass.
+     *
+     * @return depth of the goal if it was reached (the route is left on the stack),
+     *         otherwise -1 with the next threshold in {@code cutoff}
+     */
+    private int boundedSearch(int start, int goal, long threshold) {
+        int maxDegree = graph.maxDegree();
+        cutoff = Long.MAX_VALUE;
+        expanded = 0;
+        int mask = ttCell.length - 1;
+        onPath.clear();
+
+        int depth = 0;
+        stackCell[0] = start;
+        stackG[0] = 0;
+        boolean entering = true;
+        while (depth >= 0) {
+            int cell = stackCell[depth];
+            if (entering) {
+                entering = false;
+                int g = stackG[depth];
+                long f = (long) g + heuristicTable[cell];
+                boolean prune = f > threshold;
+                if (prune) {
+                    cutoff = Math.min(cutoff, f);
+                } else {
+                    int slot = cell & mask;
+                    if (ttIteration[slot] == iteration && ttCell[slot] == cell && ttG[slot] <= g) {
+                        prune = true; // already searched from here at no higher cost
+                    } else {
+                        ttIteration[slot] = iteration;
+                        ttCell[slot] = cell;
+                        ttG[slot] = g;
+                    }
+                }
+                if (prune) {
+                    depth--;
+                    continue;
+                }
+
+                expanded++;
+                if (cell == goal) {
+                    return depth;
+                }
+                onPath.set(cell);
+                ensureLevel(depth, maxDegree);
+                stackCount[depth] = successorsAt(cell, depth * maxDegree);
+                stackNext[depth] = 0;
+            }
+
+            // Descend into the next successor not already on the path
+            int base = depth * maxDegree;
+            boolean descended = false;
+            while (stackNext[depth] < stackCount[depth]) {
+                int i = base + stackNext[depth]++;
+                int next = levelCells[i];
+                if (onPath.get(next)) continue;
+                ensureStack(depth + 1);
+                stackCell[depth + 1] = next;
+                stackG[depth + 1] = stackG[depth] + levelCosts[i];
+                stackAction[depth + 1] = levelActions[i];
+                depth++;
+                entering = true;
+                descended = true;
+                break;
+            }
+            if (!descended) {
+                onPath.clear(cell);
+                depth--;
+            }
+        }
+        return -1;
+    }
+
+    // Fill the successors of cell into the level buffers at offset
+    private int successorsAt(int cell, int offset) {
+        int n = graph.successors(cell, succCell, succCost, succAction);
+        System.arraycopy(succCell, 0, levelCells, offset, n);
+        System.arraycopy(succCost, 0, levelCosts, offset, n);
+        System.arraycopy(succAction, 0, levelActions, offset, n);
+        return n;
+    }
+
+    private void ensureStack(int depth) {
+        if (depth < stackCell.length) return;
+        int size = stackCell.length * 2;
+        stackCell = Arrays.copyOf(stackCell, size);
+        stackG = Arrays.copyOf(stackG, size);
+        stackAction = Arrays.copyOf(stackAction, size);
+        stackNext = Arrays.copyOf(stackNext, size);
+        stackCount = Arrays.copyOf(stackCount, size);
+    }
+
+    private void ensureLevel(int depth, int maxDegree) {
+        int needed = (depth + 1) * maxDegree;
+        if (needed <= levelCells.length) return;
+        int size = Math.max(needed, levelCells.length * 2);
+        levelCells = Arrays.copyOf(levelCells, size);
+        levelCosts = Arrays.copyOf(levelCosts, size);
+        levelActions = Arrays.copyOf(levelActions, size);
+    }
+}
@@ -0,0 +1,175 @@
+package ai.proj;
+
+import java.util.Arrays;
+
+/**
+ * One store-to-destination route kept up to date with Lifelong Planning A* (LPA*).
+ *
+ * The search state (g, rhs and the open queue) is kept between traffic changes.
+ * When edge costs change, only the endpoints of the changed edges are re-examined
+ * and the search repairs the part of the tree whose costs are no longer
+ * consistent, which usually touches a small fraction of the cells a fresh UCS
+ * run would expand. The start store never moves, so this is D* Lite's
+ * forward-search special case. Keys are (min(g, rhs) + h, min(g, rhs)) with the
+ * Manhattan distance as h, which stays consistent for any positive traffic.
+ */
+public final class IncrementalRoute {
+
+    private static final int INF = Integer.MAX_VALUE;
+
+    private GridGraph graph;
+    private final int start;
+    private final int goal;
+    private final int[] g;
+    private final int[] rhs;
+    private final IndexedMinHeap open;
+
+    // Separate buffers for the expanded cell's successors and for rhs() scans of their predecessors
+    private int[] succCell;
+    private int[] succCost;
+    private byte[] succAction;
+    private int[] predCell;
+    private int[] predCost;
+    private byte[] predAction;
+
+    private PlanResult route;
+
+    public IncrementalRoute(GridGraph graph, int start, int goal) {
+        this.graph = graph;
+        this.start = start;
+        this.goal = goal;
+        int cells = graph.cellCount();
+        this.g = new int[cells];
+        this.rhs = new int[cells];
+        Arrays.fill(g, INF);
+        Arrays.fill(rhs, INF);
+        this.open = new IndexedMinHeap(cells);
+        allocateBuffers(Math.max(1, graph.maxDegree()));
+
+        rhs[start] = 0;
+        open.insert(start, key(start));
+        this.route = extract(computeShortestPath());
+    }
+
+    public int getStart() { return start; }
+    public int getGoal() { return goal; }
+
+    /** Current route; nodesExpanded counts the cells expanded by the last (re)plan only. */
+    public PlanResult getRoute() { return route; }
+
+    /**
+     * Switch to {@code updated} (same dimensions, new traffic) and repair the route.
+     *
+     * @param changedEdges {cellA, cellB} of every edge whose cost changed
+     * @return the repaired route
+     */
+    public PlanResult update(GridGraph updated, int[][] changedEdges) {
+        if (updated.cellCount() != g.length) {
+            throw new IllegalArgumentException("Grid size changed; track the route again");
+        }
+        if (updated.maxDegree() > succCell.length) {
+            allocateBuffers(updated.maxDegree()); // an opened edge can raise the degree
+        }
+        this.graph = updated;
+        for (int[] edge : changedEdges) {
+            updateVertex(edge[0]);
+            updateVertex(edge[1]);
+        }
+        this.route = extract(computeShortestPath());
+        return route;
+    }
+
+    private void allocateBuffers(int degree) {
+        this.succCell = new int[degree];
+        this.succCost = new int[degree];
+        this.succAction = new byte[degree];
+        this.predCell = new int[degree];
+        this.predCost = new int[degree];
+        this.predAction = new byte[degree];
+    }
+
+    private int h(int cell) {
+        return Math.abs(graph.row(cell) - graph.row(goal)) + Math.abs(graph.col(cell) - graph.col(goal));
+    }
+
+    // Lexicographic (k1, k2) packed into one long: k1 in the high bits, k2 = min(g, rhs) below
+    private long key(int cell) {
+        int m = Math.min(g[cell], rhs[cell]);
+        return (((long) m + h(cell)) << 31) | m;
+    }
+
+    private void updateVertex(int cell) {
+        if (cell != start) {
+            int best = INF;
+            int n = graph.predecessors(cell, predCell, predCost, predAction);
+            for (int i = 0; i < n; i++) {
+                int gp = g[predCell[i]];
+                if (gp != INF && gp + predCost[i] < best) best = gp + predCost[i];
+            }
+            rhs[cell] = best;
+        }
+        if (g[cell] != rhs[cell]) {
+            open.update(cell, key(cell));
+        } else {
+            open.remove(cell);
+        }
+    }
+
+    /** @return number of cells expanded */
+    private int computeShortestPath() {
+        int expanded = 0;
+        while (!open.isEmpty() && (open.peekKey() < key(goal) || rhs[goal] != g[goal])) {
+            int u = open.poll();
+            expanded++;
+            int n = graph.successors(u, succCell, succCost, succAction);
+            if (g[u] > rhs[u]) {
+                g[u] = rhs[u]; // overconsistent: settle
+            } else {
+                g[u] = INF;    // underconsistent: invalidate and re-derive
+                updateVertex(u);
+            }
+            for (int i = 0; i < n; i++) {
+                updateVertex(succCell[i]);
+            }
+        }
+        return expanded;
+    }
+
+    // Walk back from the goal along predecessors that account for its g
+    private PlanResult extract(int expanded) {
+        if (g[goal] == INF) {
+            return PlanResult.failure(expanded);
+        }
+        byte[] path = new byte[16];
+        int length = 0;
+        for (int cell = goal; cell != start; ) {
+            int n = graph.predecessors(cell, predCell, predCost, predAction);
+            int next = -1;
+            long best = Long.MAX_VALUE;
+            byte action = 0;
+            for (int i = 0; i < n; i++) {
+                int gp = g[predCell[i]];
+                if (gp == INF) continue;
+                long through = (long) gp + predCost[i];
+                if (through < best) {
+                    best = through;
+                    next = predCell[i];
+                    action = predAction[i];
+                }
+            }
+            if (next < 0 || length == g.length) {
+                throw new IllegalStateException("Inconsistent LPA* state at cell " + cell);
+            }
+            if (length == path.length) path = Arrays.copyOf(path, length * 2);
+            path[length++] = action;
+            cell = next;
+        }
+        // Collected goal-first; reverse into route order
+        for (int i = 0, j = length - 1; i < j; i++, j--) {
+            byte t = path[i];
+            path[i] = path[j];
+            path[j] = t;
+        }
+        return PlanResult.of(graph.row(start), graph.col(start), Arrays.copyOf(path, length), g[goal], expanded);
+    }
+}
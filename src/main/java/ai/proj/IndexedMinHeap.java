@@ -0,0 +1,154 @@
+package ai.proj;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap over int items in {@code [0, capacity)} with decrease-key,
+ * arbitrary key updates and removal.
+ *
+ * Each item is in the heap at most once, so a frontier backed by this heap
+ * never holds more entries than there are cells. Keys are primitive longs and
+ * compared directly, with no boxing or comparator calls.
+ */
+public final class IndexedMinHeap {
+
+    private final int[] heap;  // heap slot -> item
+    private final int[] pos;   // item -> heap slot, -1 when absent
+    private final long[] keys; // item -> current key (valid while contained)
+    private int size;
+
+    public IndexedMinHeap(int capacity) {
+        this.heap = new int[capacity];
+        this.pos = new int[capacity];
+        this.keys = new long[capacity];
+        Arrays.fill(pos, -1);
+    }
+
+    public int capacity() { return pos.length; }
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+    public boolean contains(int item) { return pos[item] >= 0; }
+    public long key(int item) { return keys[item]; }
+
+    public void insert(int item, long key) {
+        if (pos[item] >= 0) {
+            throw new IllegalStateException("Item already in heap: " + item);
+        }
+        keys[item] = key;
+        heap[size] = item;
+        pos[item] = size;
+        siftUp(size++);
+    }
+
+    public void decreaseKey(int item, long key) {
+        if (key > keys[item]) {
+            throw new IllegalArgumentException("New key is greater than current key for item " + item);
+        }
+        keys[item] = key;
+        siftUp(pos[item]);
+    }
+
+    /**
+     * Insert the item, or lower its key if it is already queued with a larger one.
+     *
+     * @return true if the heap changed
+     */
+    public boolean insertOrDecrease(int item, long key) {
+        if (pos[item] < 0) {
+            insert(item, key);
+            return true;
+        }
+        if (key < keys[item]) {
+            decreaseKey(item, key);
+            return true;
+        }
+        return false;
+    }
+
+    /** Set the item's key, raising or lowering it, inserting the item if absent. */
+    public void update(int item, long key) {
+        if (pos[item] < 0) {
+            insert(item, key);
+            return;
+        }
+        long old = keys[item];
+        keys[item] = key;
+        if (key < old) {
+            siftUp(pos[item]);
+        } else if (key > old) {
+            siftDown(pos[item]);
+        }
+    }
+
+    /** Remove the item if it is queued. */
+    public void remove(int item) {
+        int i = pos[item];
+        if (i < 0) return;
+        pos[item] = -1;
+        if (--size > i) {
+            int last = heap[size];
+            heap[i] = last;
+            pos[last] = i;
+            siftDown(i);
+            siftUp(pos[last]);
+        }
+    }
+
+    public long peekKey() {
+        return keys[heap[0]];
+    }
+
+    /** Remove and return the item with the smallest key. */
+    public int poll() {
+        int top = heap[0];
+        pos[top] = -1;
+        if (--size > 0) {
+            int last = heap[size];
+            heap[0] = last;
+            pos[last] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /** Empty the heap in O(size), leaving it ready for the next search. */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            pos[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int i) {
+        int item = heap[i];
+        long key = keys[item];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            int parentItem = heap[parent];
+            if (keys[parentItem] <= key) break;
+            heap[i] = parentItem;
+            pos[parentItem] = i;
+            i = parent;
+        }
+        heap[i] = item;
+        pos[item] = i;
+    }
+
+    private void siftDown(int i) {
+        int item = heap[i];
+        long key = keys[item];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && keys[heap[right]] < keys[heap[child]]) child = right;
+            int childItem = heap[child];
+            if (key <= keys[childItem]) break;
+            heap[i] = childItem;
+            pos[childItem] = i;
+            i = child;
+        }
+        heap[i] = item;
+        pos[item] = i;
+    }
+}
@@ -5,6 +5,7 @@ import java.util.*;
 public class IterativeDeepening extends GenericSearch {
 
     private final int maxDepth;
+    private int foundLength; // number of moves on the route found by the last dfsLimited()
 
     public IterativeDeepening() {
         this(20);
@@ -15,52 +16,57 @@ public class IterativeDeepening extends GenericSearch {
     }
 
     @Override
-    public String search(String goalState) {
-        String[] parts = goalState.split(",");
-        int goalR = Integer.parseInt(parts[0]);
-        int goalC = Integer.parseInt(parts[1]);
-
-        int startR = (startRow >= 0 ? startRow : stores[0][0]);
-        int startC = (startCol >= 0 ? startCol : stores[0][1]);
+    public PlanResult solve(String goalState) {
+        int goal = parseCell(goalState);
+        int start = startCell();
 
         int totalNodesExpanded = 0;
 
+        // One successor buffer per recursion level, so nested expansions don't overwrite each other
+        int[][] levelCells = new int[maxDepth + 1][graph.maxDegree()];
+        int[][] levelCosts = new int[maxDepth + 1][graph.maxDegree()];
+        byte[][] levelActions = new byte[maxDepth + 1][graph.maxDegree()];
+
+        // Action codes along the current path, indexed by depth
+        byte[] actions = new byte[maxDepth];
+
         for (int depth = 0; depth <= maxDepth; depth++) {
-            List<String> actions = new ArrayList<>();
-            Set<String> pathSet = new HashSet<>();
+            BitSet pathSet = new BitSet(graph.cellCount());
             MutableInt nodesExpanded = new MutableInt(0);
             MutableInt totalCost = new MutableInt(0);
 
-            boolean found = dfsLimited(startR, startC, goalR, goalC, depth, actions, 0, pathSet, nodesExpanded, totalCost);
+            boolean found = dfsLimited(start, goal, depth, actions, 0, 0, pathSet, nodesExpanded, totalCost,
+                                       levelCells, levelCosts, levelActions);
 
             totalNodesExpanded += nodesExpanded.value;
 
             if (found) {
-                String plan = String.join(",", actions);
-                return startR + "," + startC + ";" + plan + ";" + totalCost.value + ";" + totalNodesExpanded;
+                return PlanResult.of(graph.row(start), graph.col(start), Arrays.copyOf(actions, foundLength),
+                                     totalCost.value, totalNodesExpanded);
             }
-
-            // Hint GC to reclaim objects from this depth iteration before next
-            // Note: This is just a hint; JVM may ignore it
-            System.gc();
         }
 
-        return "FAIL;0;" + totalNodesExpanded;
+        return PlanResult.failure(totalNodesExpanded);
     }
 
-    private boolean dfsLimited(int r, int c,
-                               int goalR, int goalC,
+    private boolean dfsLimited(int cell,
+                               int goal,
                                int depthLimit,
-                               List<String> actions,
+                               byte[] actions,
+                               int pathLength,
                                int cost,
-                               Set<String> pathSet,
+                               BitSet pathSet,
                                MutableInt nodesExpanded,
-                               MutableInt totalCost) {
+                               MutableInt totalCost,
+                               int[][] levelCells,
+                               int[][] levelCosts,
+                               byte[][] levelActions) {
 
         nodesExpanded.value++;
 
-        if (r == goalR && c == goalC) {
+        if (cell == goal) {
             totalCost.value = cost; // set total cost when goal is found
+            foundLength = pathLength;
             return true;
         }
 
@@ -68,31 +74,36 @@ public class IterativeDeepening extends GenericSearch {
             return false;
         }
 
-        String state = r + "," + c;
-        if (pathSet.contains(state)) {
+        if (pathSet.get(cell)) {
             return false; // avoid cycles along current path
         }
 
-        pathSet.add(state);
+        pathSet.set(cell);
 
-        List<Successor> successors = getSuccessors(state);
-        for (Successor succ : successors) {
-            actions.add(succ.action);
-            boolean found = dfsLimited(succ.getRow(), succ.getCol(),
-                                       goalR, goalC,
+        int[] succCells = levelCells[depthLimit];
+        int[] succCosts = levelCosts[depthLimit];
+        byte[] succActions = levelActions[depthLimit];
+        int n = graph.successors(cell, succCells, succCosts, succActions);
+        for (int i = 0; i < n; i++) {
+            actions[pathLength] = succActions[i];
+            boolean found = dfsLimited(succCells[i],
+                                       goal,
                                        depthLimit - 1,
                                        actions,
-                                       cost + succ.stepCost,
+                                       pathLength + 1,
+                                       cost + succCosts[i],
                                        pathSet,
                                        nodesExpanded,
-                                       totalCost);
+                                       totalCost,
+                                       levelCells,
+                                       levelCosts,
+                                       levelActions);
             if (found) {
                 return true; // solution found, propagate upward
             }
-            actions.remove(actions.size() - 1); // backtrack
         }
 
-        pathSet.remove(state); // backtrack
+        pathSet.clear(cell); // backtrack
         return false;
     }
 
@@ -0,0 +1,81 @@
+package ai.proj;
+
+/**
+ * Exact shortest-path distances from K landmark cells to every cell of a grid,
+ * used by the ALT heuristic (h3).
+ *
+ * Landmarks are picked by farthest-point selection inside the component of the
+ * first store: the first is the cell farthest from that store, each next one
+ * the cell farthest from all landmarks chosen so far. Tables are computed once
+ * per GridModel, outside any global lock (see GridPreprocessing), and shared by
+ * every search on it.
+ */
+final class LandmarkTables {
+
+    static final int DEFAULT_LANDMARKS = 8;
+
+    private static final GridPreprocessing<LandmarkTables> CACHE =
+            new GridPreprocessing<>(grid -> compute(grid, DEFAULT_LANDMARKS));
+
+    private final int[] landmarks;
+    private final int[][] dist; // dist[k][cell], ShortestPathTree.UNREACHABLE if unreachable
+
+    private LandmarkTables(int[] landmarks, int[][] dist) {
+        this.landmarks = landmarks;
+        this.dist = dist;
+    }
+
+    /** Tables for the grid, computing them on first use. */
+    static LandmarkTables forGrid(GridModel grid) {
+        return CACHE.get(grid);
+    }
+
+    static LandmarkTables compute(GridModel grid, int k) {
+        GridGraph graph = grid.getGraph();
+        int cells = graph.cellCount();
+        int seed = grid.getNumStores() > 0 ? graph.id(grid.getStores()[0][0], grid.getStores()[0][1]) : 0;
+
+        // minDist[cell] = distance to the closest landmark chosen so far
+        int[] minDist = ShortestPathTree.compute(graph, seed).distances().clone();
+        int[] chosen = new int[Math.min(k, cells)];
+        int[][] tables = new int[chosen.length][];
+        int count = 0;
+        while (count < chosen.length) {
+            int next = -1;
+            for (int cell = 0; cell < cells; cell++) {
+                if (minDist[cell] == ShortestPathTree.UNREACHABLE) continue;
+                if (next < 0 || minDist[cell] > minDist[next]) next = cell;
+            }
+            if (next < 0 || (count > 0 && minDist[next] == 0)) break; // component exhausted
+            chosen[count] = next;
+            tables[count] = ShortestPathTree.compute(graph, next).distances();
+            for (int cell = 0; cell < cells; cell++) {
+                minDist[cell] = Math.min(minDist[cell], tables[count][cell]);
+            }
+            count++;
+        }
+
+        int[] landmarks = new int[count];
+        int[][] dist = new int[count][];
+        System.arraycopy(chosen, 0, landmarks, 0, count);
+        System.arraycopy(tables, 0, dist, 0, count);
+        return new LandmarkTables(landmarks, dist);
+    }
+
+    int landmarkCount() { return landmarks.length; }
+
+    /**
+     * Lower bound on the distance between two cells from the triangle inequality:
+     * max over landmarks of |d(L, goal) - d(L, cell)| (edges cost the same both ways).
+     */
+    int lowerBound(int cell, int goal) {
+        int best = 0;
+        for (int[] d : dist) {
+            int a = d[cell];
+            int b = d[goal];
+            if (a == ShortestPathTree.UNREACHABLE || b == ShortestPathTree.UNREACHABLE) continue;
+            best = Math.max(best, Math.abs(a - b));
+        }
+        return best;
+    }
+}
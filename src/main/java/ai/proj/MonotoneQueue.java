@@ -0,0 +1,20 @@
+package ai.proj;
+
+/**
+ * Integer-keyed priority queue for monotone searches (Dijkstra/UCS): every key
+ * pushed is at least the key of the last item polled. Stale duplicates are not
+ * removed; callers skip them when polled.
+ */
+public interface MonotoneQueue {
+    void push(int item, int key);
+
+    /** Remove and return an item with the smallest key; see {@link #lastKey()}. */
+    int poll();
+
+    /** Key of the item returned by the last {@link #poll()}. */
+    int lastKey();
+
+    boolean isEmpty();
+
+    void clear();
+}
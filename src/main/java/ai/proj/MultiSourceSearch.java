@@ -0,0 +1,81 @@
+package ai.proj;
+
+/**
+ * Multi-source Dijkstra: one search per destination, seeded from every store at
+ * distance 0, that returns the cheapest store together with its path.
+ *
+ * Labels are ordered by (cost, store index), so ties go to the lowest-index
+ * store exactly like the per-store loop in DeliveryPlanner.plan(), but the work
+ * no longer grows with the number of stores. setStart() is ignored; the result
+ * starts at the chosen store.
+ */
+public class MultiSourceSearch extends GenericSearch {
+
+    private IndexedMinHeap frontier;
+    private CellLabels labels;
+    private int[] origin; // store index each label came from
+
+    @Override
+    public PlanResult solve(String goalState) {
+        int goal = parseCell(goalState);
+
+        int nodesExpanded = multiSourceSearch(goal);
+        if (!labels.isClosed(goal)) {
+            return PlanResult.failure(nodesExpanded);
+        }
+        // The route starts at the chosen store (origin[goal])
+        return labels.resultTo(goal, graph, nodesExpanded);
+    }
+
+    // Composite key: cost in the high 32 bits, store index as the tie-breaker
+    private static long key(int cost, int store) {
+        return ((long) cost << 32) | store;
+    }
+
+    private int multiSourceSearch(int goal) {
+        if (labels == null || labels.capacity() != graph.cellCount()) {
+            frontier = new IndexedMinHeap(graph.cellCount());
+            labels = new CellLabels(graph.cellCount());
+            origin = new int[graph.cellCount()];
+        }
+        frontier.clear();
+        labels.reset();
+        int nodesExpanded = 0;
+
+        // Seed every store at distance 0; a cell shared by two stores keeps the lower index
+        for (int s = 0; s < numStores; s++) {
+            int cell = graph.id(stores[s][0], stores[s][1]);
+            if (labels.isReached(cell)) continue;
+            labels.set(cell, 0, -1, (byte) 0);
+            origin[cell] = s;
+            frontier.insert(cell, key(0, s));
+        }
+
+        while (!frontier.isEmpty()) {
+            int current = frontier.poll();
+            labels.close(current);
+            nodesExpanded++;
+
+            if (current == goal) {
+                break;
+            }
+
+            int g = labels.g[current];
+            int store = origin[current];
+            int n = graph.successors(current, succCell, succCost, succAction);
+            for (int i = 0; i < n; i++) {
+                int next = succCell[i];
+                if (labels.isClosed(next)) continue;
+                int newCost = g + succCost[i];
+                int bestG = labels.bestG(next);
+                if (newCost < bestG || (newCost == bestG && store < origin[next])) {
+                    labels.set(next, newCost, current, succAction[i]);
+                    origin[next] = store;
+                    frontier.insertOrDecrease(next, key(newCost, store));
+                }
+            }
+        }
+
+        return nodesExpanded;
+    }
+}
@@ -0,0 +1,108 @@
+package ai.proj;
+
+/**
+ * Outcome of one store-to-destination search: the start cell, the route cost,
+ * the number of nodes expanded and the route itself.
+ *
+ * The route is kept as action codes (GridGraph.UP .. TUNNEL) packed 3 bits per
+ * move, 21 moves per long, so comparing results and choosing a store never
+ * builds or re-parses text. toString() renders the plan-line format
+ * "r,c;up,down,...;cost;nodesExpanded" (or "FAIL;0;nodesExpanded"), which is only
+ * needed where results leave the planner. Immutable.
+ */
+public final class PlanResult {
+
+    static final int BITS_PER_MOVE = 3;
+    static final int MOVES_PER_WORD = 64 / BITS_PER_MOVE;
+    private static final long MOVE_MASK = (1L << BITS_PER_MOVE) - 1;
+    private static final long[] NO_MOVES = new long[0];
+
+    private final int startRow;
+    private final int startCol;
+    private final int cost;
+    private final int nodesExpanded;
+    private final long[] moves;
+    private final int length;
+
+    private PlanResult(int startRow, int startCol, int cost, int nodesExpanded, long[] moves, int length) {
+        this.startRow = startRow;
+        this.startCol = startCol;
+        this.cost = cost;
+        this.nodesExpanded = nodesExpanded;
+        this.moves = moves;
+        this.length = length;
+    }
+
+    /** Successful route from (startRow, startCol) with the given action codes. */
+    public static PlanResult of(int startRow, int startCol, byte[] actions, int cost, int nodesExpanded) {
+        long[] moves = words(actions.length);
+        for (int i = 0; i < actions.length; i++) {
+            put(moves, i, actions[i]);
+        }
+        return new PlanResult(startRow, startCol, cost, nodesExpanded, moves, actions.length);
+    }
+
+    // For callers that pack the moves themselves (e.g. walking parent pointers backwards)
+    static PlanResult packed(int startRow, int startCol, long[] moves, int length, int cost, int nodesExpanded) {
+        return new PlanResult(startRow, startCol, cost, nodesExpanded, moves, length);
+    }
+
+    /** No route was found. */
+    public static PlanResult failure(int nodesExpanded) {
+        return new PlanResult(-1, -1, 0, nodesExpanded, NO_MOVES, 0);
+    }
+
+    /** Words needed to hold {@code length} packed moves. */
+    static long[] words(int length) {
+        return length == 0 ? NO_MOVES : new long[(length + MOVES_PER_WORD - 1) / MOVES_PER_WORD];
+    }
+
+    /** Store action code {@code action} as move {@code index}. */
+    static void put(long[] moves, int index, int action) {
+        moves[index / MOVES_PER_WORD] |= (long) action << (BITS_PER_MOVE * (index % MOVES_PER_WORD));
+    }
+
+    public boolean isSuccess() { return startRow >= 0; }
+    public int getStartRow() { return startRow; }
+    public int getStartCol() { return startCol; }
+    public int getCost() { return cost; }
+    public int getNodesExpanded() { return nodesExpanded; }
+
+    /** Number of moves on the route. */
+    public int length() { return length; }
+
+    /** Action code of move {@code index}. */
+    public int action(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Move " + index + " of " + length);
+        }
+        return (int) ((moves[index / MOVES_PER_WORD] >>> (BITS_PER_MOVE * (index % MOVES_PER_WORD))) & MOVE_MASK);
+    }
+
+    /** Action codes of the whole route, one per byte. */
+    public byte[] actions() {
+        byte[] codes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            codes[i] = (byte) action(i);
+        }
+        return codes;
+    }
+
+    /** Append the plan-line text of this result to {@code sb}. */
+    public StringBuilder appendTo(StringBuilder sb) {
+        if (!isSuccess()) {
+            return sb.append("FAIL;0;").append(nodesExpanded);
+        }
+        sb.append(startRow).append(',').append(startCol).append(';');
+        for (int i = 0; i < length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(GridGraph.actionName(action(i)));
+        }
+        return sb.append(';').append(cost).append(';').append(nodesExpanded);
+    }
+
+    @Override
+    public String toString() {
+        return appendTo(new StringBuilder(24 + length * 6)).toString();
+    }
+}
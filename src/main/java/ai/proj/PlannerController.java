@@ -1,98 +1,339 @@
 package ai.proj;
 
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
 
 @RestController
 @CrossOrigin(origins = "http://localhost:3000")
 @RequestMapping("/api")
 public class PlannerController {
-    private final DeliveryPlanner planner = new DeliveryPlanner();
-    private GenericSearch currentStrategy = new IterativeDeepening();
-
-    // Strategy helpers
-    private GenericSearch choose(String name) {
-        if (name == null || name.isBlank()) return currentStrategy;
-        switch (name.toUpperCase()) {
-            case "BFS": return new BFS();
-            case "DFS": return new DFS();
-            case "UCS": return new UniformCost();
-            case "ASTAR1": return new AStar(1);
-            case "ASTAR2": return new AStar(2);
-            case "ITERATIVEDEEPENING": return new IterativeDeepening();
-            case "GREEDY1": return new Greedy(1);
-            case "GREEDY2": return new Greedy(2);
-            default: return currentStrategy;
+    // Session used by requests that do not name one
+    static final String DEFAULT_SESSION = "default";
+    // Largest rows or cols /grid/generate accepts: generation runs on the request thread
+    static final int MAX_GENERATED_SIDE = 2000;
+
+    // One planner per session; each holds its own grid snapshot and can be used concurrently
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    // Runs streamed plans off the request thread, one virtual thread per stream
+    private final ExecutorService streamExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private static final class Session {
+        final DeliveryPlanner planner;
+        // Default strategy by name: every request builds its own instance, so none is shared
+        volatile String strategyName = "IDASTAR";
+
+        Session(DeliveryPlanner planner) {
+            this.planner = planner;
+        }
+    }
+
+    public PlannerController() {
+        sessions.put(DEFAULT_SESSION, new Session(new DeliveryPlanner()));
+    }
+
+    private Session session(String id) {
+        Session session = sessions.get(id);
+        if (session == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown session: " + id);
         }
+        return session;
+    }
+
+    private DeliveryPlanner planner(String sessionId) {
+        return session(sessionId).planner;
+    }
+
+    // Strategy helpers: a fresh instance per call; blank or unknown names give the session default
+    private GenericSearch choose(Session session, String name) {
+        GenericSearch chosen = (name == null || name.isBlank()) ? null : DeliveryPlanner.chooseStrategy(name);
+        return chosen != null ? chosen : DeliveryPlanner.chooseStrategy(session.strategyName);
+    }
+
+    // Sessions: create one with a new grid, or sharing the current grid of session "from"
+    // (later traffic changes or regeneration in either session do not affect the other)
+    @PostMapping("/sessions")
+    public ResponseEntity<String> createSession(@RequestParam(name = "from", required = false) String from) {
+        Session created;
+        if (from == null || from.isBlank()) {
+            DeliveryPlanner planner = new DeliveryPlanner();
+            planner.generateGrid();
+            created = new Session(planner);
+        } else {
+            Session source = session(from);
+            created = new Session(new DeliveryPlanner(source.planner.getSnapshot()));
+            created.strategyName = source.strategyName;
+        }
+        String id = UUID.randomUUID().toString();
+        sessions.put(id, created);
+        return ResponseEntity.ok(id);
+    }
+
+    @GetMapping("/sessions")
+    public ResponseEntity<String[]> listSessions() {
+        String[] ids = sessions.keySet().toArray(new String[0]);
+        Arrays.sort(ids);
+        return ResponseEntity.ok(ids);
+    }
+
+    @DeleteMapping("/sessions/{id}")
+    public ResponseEntity<String> deleteSession(@PathVariable("id") String id) {
+        if (DEFAULT_SESSION.equals(id)) {
+            return ResponseEntity.badRequest().body("The default session cannot be deleted");
+        }
+        if (sessions.remove(id) == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown session: " + id);
+        }
+        return ResponseEntity.ok("Session deleted");
     }
 
     // Generate/regenerate
+    // Without parameters: a small random grid. With any of them: a reproducible grid from a
+    // GridSpec, densities as fractions of the cells (obstacles: of the edges), costs UNIFORM/LOW/HIGH
     @PostMapping("/grid/generate")
-    public ResponseEntity<String> generate() {
-        planner.generateGrid();
+    public ResponseEntity<String> generate(@RequestParam(name = "seed", required = false) Long seed,
+                                           @RequestParam(name = "rows", required = false) Integer rows,
+                                           @RequestParam(name = "cols", required = false) Integer cols,
+                                           @RequestParam(name = "stores", required = false) Double stores,
+                                           @RequestParam(name = "destinations", required = false) Double destinations,
+                                           @RequestParam(name = "tunnels", required = false) Double tunnels,
+                                           @RequestParam(name = "obstacles", required = false) Double obstacles,
+                                           @RequestParam(name = "minTraffic", required = false) Integer minTraffic,
+                                           @RequestParam(name = "maxTraffic", required = false) Integer maxTraffic,
+                                           @RequestParam(name = "costs", required = false) String costs,
+                                           @RequestParam(name = "session", defaultValue = DEFAULT_SESSION) String session) {
+        DeliveryPlanner planner = planner(session);
+        if (seed == null && rows == null && cols == null && stores == null && destinations == null && tunnels == null
+                && obstacles == null && minTraffic == null && maxTraffic == null && costs == null) {
+            planner.generateGrid();
+            return ResponseEntity.ok(planner.getInitialState());
+        }
+        if ((rows != null && rows > MAX_GENERATED_SIDE) || (cols != null && cols > MAX_GENERATED_SIDE)) {
+            return ResponseEntity.badRequest().body("rows and cols must be at most " + MAX_GENERATED_SIDE);
+        }
+        GridSpec spec;
+        try {
+            GridSpec base = GridSpec.of(seed != null ? seed : ThreadLocalRandom.current().nextLong(),
+                    rows != null ? rows : 10, cols != null ? cols : 10);
+            spec = new GridSpec(base.seed(), base.rows(), base.cols(),
+                    stores != null ? stores : base.storeDensity(),
+                    destinations != null ? destinations : base.destinationDensity(),
+                    tunnels != null ? tunnels : base.tunnelDensity(),
+                    obstacles != null ? obstacles : base.obstacleDensity(),
+                    minTraffic != null ? minTraffic : base.minTraffic(),
+                    maxTraffic != null ? maxTraffic : Math.max(base.maxTraffic(), minTraffic != null ? minTraffic : 0),
+                    costs != null ? GridSpec.CostDistribution.valueOf(costs.toUpperCase()) : base.costDistribution());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        planner.generateGrid(spec);
         return ResponseEntity.ok(planner.getInitialState());
     }
 
     @PostMapping("/grid/regenerate")
-    public ResponseEntity<String> regenerate() {
+    public ResponseEntity<String> regenerate(@RequestParam(name = "session", defaultValue = DEFAULT_SESSION) String session) {
+        DeliveryPlanner planner = planner(session);
         planner.regenerateGrid();
         return ResponseEntity.ok(planner.getInitialState());
     }
 
     // Getters
+    // Build the contraction hierarchy for strategy=CH now instead of on the first query
+    @PostMapping("/grid/preprocess")
+    public ResponseEntity<String> preprocess(@RequestParam(name = "session", defaultValue = DEFAULT_SESSION) String session) {
+        return ResponseEntity.ok(planner(session).preprocessContractionHierarchy());
+    }
+
     @GetMapping("/grid/initialState")
-    public ResponseEntity<String> getInitialState() { return ResponseEntity.ok(planner.getInitialState()); }
+    public ResponseEntity<String> getInitialState(@RequestParam(name = "session", defaultValue = DEFAULT_SESSION) String session) {
+        return ResponseEntity.ok(planner(session).getInitialState());
+    }
 
     @GetMapping("/grid/traffic")
-    public ResponseEntity<String> getTraffic() { return ResponseEntity.ok(planner.getTrafficString()); }
+    public ResponseEntity<String> getTraffic(@RequestParam(name = "session", defaultValue = DEFAULT_SESSION) String session) {
+        return ResponseEntity.ok(planner(session).getTrafficString());
+    }
 
     @GetMapping("/grid/stores")
-    public ResponseEntity<int[][]> getStores() { return ResponseEntity.ok(planner.getStores()); }
+    public ResponseEntity<int[][]> getStores(@RequestParam(name = "session", defaultValue = DEFAULT_SESSION) String session) {
+        return ResponseEntity.ok(planner(session).getStores());
+    }
 
     @GetMapping("/grid/destinations")
-    public ResponseEntity<int[][]> getDestinations() { return ResponseEntity.ok(planner.getDestinations()); }
+    public ResponseEntity<int[][]> getDestinations(@RequestParam(name = "session", defaultValue = DEFAULT_SESSION) String session) {
+        return ResponseEntity.ok(planner(session).getDestinations());
+    }
 
     @GetMapping("/grid/tunnels")
-    public ResponseEntity<int[][]> getTunnels() { return ResponseEntity.ok(planner.getTunnels()); }
+    public ResponseEntity<int[][]> getTunnels(@RequestParam(name = "session", defaultValue = DEFAULT_SESSION) String session) {
+        return ResponseEntity.ok(planner(session).getTunnels());
+    }
 
+    // size and counts read one grid, so the two numbers always belong together
     @GetMapping("/grid/size")
-    public ResponseEntity<String> getSize() { return ResponseEntity.ok(planner.getRows() + "," + planner.getCols()); }
+    public ResponseEntity<String> getSize(@RequestParam(name = "session", defaultValue = DEFAULT_SESSION) String session) {
+        GridModel grid = planner(session).getGrid();
+        return ResponseEntity.ok(grid == null ? "0,0" : grid.getRows() + "," + grid.getCols());
+    }
 
     @GetMapping("/grid/counts")
-    public ResponseEntity<String> getCounts() { return ResponseEntity.ok(planner.getNumStores() + "," + planner.getNumDestinations()); }
+    public ResponseEntity<String> getCounts(@RequestParam(name = "session", defaultValue = DEFAULT_SESSION) String session) {
+        GridModel grid = planner(session).getGrid();
+        return ResponseEntity.ok(grid == null ? "0,0" : grid.getNumStores() + "," + grid.getNumDestinations());
+    }
 
-    // Strategy
+    // Strategy: default of the session for requests that do not name one
     @PostMapping("/strategy")
-    public ResponseEntity<String> setStrategy(@RequestParam(name = "name", required = false) String name) {
-        currentStrategy = choose(name);
+    public ResponseEntity<String> setStrategy(@RequestParam(name = "name", required = false) String name,
+                                              @RequestParam(name = "session", defaultValue = DEFAULT_SESSION) String session) {
+        Session s = session(session);
+        if (name != null && !name.isBlank() && DeliveryPlanner.chooseStrategy(name) != null) {
+            s.strategyName = name.toUpperCase();
+        }
         return ResponseEntity.ok("OK");
     }
 
     // Planning: full deliveries
+    // mode=multisource: one search per destination seeded from all stores (strategy is ignored)
+    // mode=spt: one shortest-path tree per store, reused for every destination (strategy is ignored)
+    // mode=parallel: store x destination searches spread over an executor
+    //                (executor=forkjoin, the default, or executor=virtual for virtual threads)
     @PostMapping("/plan")
-    public ResponseEntity<String> plan(@RequestParam(name = "strategy", required = false) String strategy) {
-        GenericSearch s = choose(strategy);
-        String result = planner.plan(s);
+    public ResponseEntity<String> plan(@RequestParam(name = "strategy", required = false) String strategy,
+                                       @RequestParam(name = "mode", required = false) String mode,
+                                       @RequestParam(name = "executor", required = false) String executor,
+                                       @RequestParam(name = "session", defaultValue = DEFAULT_SESSION) String session) {
+        Session s = session(session);
+        DeliveryPlanner planner = s.planner;
+        if ("multisource".equalsIgnoreCase(mode)) {
+            return ResponseEntity.ok(planner.planMultiSource());
+        }
+        if ("spt".equalsIgnoreCase(mode)) {
+            return ResponseEntity.ok(planner.planShortestPathTrees());
+        }
+        if ("parallel".equalsIgnoreCase(mode)) {
+            String name = (strategy == null || strategy.isBlank() || DeliveryPlanner.chooseStrategy(strategy) == null)
+                    ? s.strategyName : strategy.toUpperCase();
+            if ("virtual".equalsIgnoreCase(executor)) {
+                try (ExecutorService virtualThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+                    return ResponseEntity.ok(planner.planParallel(name, virtualThreads));
+                }
+            }
+            return ResponseEntity.ok(planner.planParallel(name));
+        }
+        String result = planner.plan(choose(s, strategy));
         return ResponseEntity.ok(result);
     }
 
+    // Planning: full deliveries streamed as Server-Sent Events. Every destination's route is
+    // sent as a "route" event (id = destination index, data = "x,y;plan;cost;nodesExpanded")
+    // as soon as it is chosen; a final "done" event carries SUCCESS or the failure message.
+    @GetMapping(value = "/plan/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter planStream(@RequestParam(name = "strategy", required = false) String strategy,
+                                 @RequestParam(name = "session", defaultValue = DEFAULT_SESSION) String session) {
+        Session s = session(session);
+        GenericSearch search = choose(s, strategy);
+        SseEmitter emitter = new SseEmitter(0L); // no timeout: large plans can run for minutes
+        streamExecutor.execute(() -> {
+            int[] index = {0};
+            try {
+                String status = s.planner.planStreaming(search, route -> {
+                    try {
+                        emitter.send(SseEmitter.event().id(Integer.toString(index[0]++)).name("route").data(route.toString()));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                emitter.send(SseEmitter.event().name("done").data(status));
+                emitter.complete();
+            } catch (IOException | RuntimeException e) {
+                emitter.completeWithError(e); // includes the client disconnecting mid-plan
+            }
+        });
+        return emitter;
+    }
+
     // Planning: single goal (x,y)
     @PostMapping("/plan/goal")
     public ResponseEntity<String> planForGoal(@RequestParam("goal") String goal,
-                                              @RequestParam(name = "strategy", required = false) String strategy) {
-        GenericSearch s = choose(strategy);
-        String result = planner.planForGoal(s, goal);
+                                              @RequestParam(name = "strategy", required = false) String strategy,
+                                              @RequestParam(name = "mode", required = false) String mode,
+                                              @RequestParam(name = "session", defaultValue = DEFAULT_SESSION) String session) {
+        Session s = session(session);
+        if ("multisource".equalsIgnoreCase(mode)) {
+            return ResponseEntity.ok(s.planner.planForGoalMultiSource(goal));
+        }
+        if ("spt".equalsIgnoreCase(mode)) {
+            return ResponseEntity.ok(s.planner.planForGoalShortestPathTrees(goal));
+        }
+        String result = s.planner.planForGoal(choose(s, strategy), goal);
         return ResponseEntity.ok(result);
     }
 
+    // Planning: many queries in one call. goals="x,y;x,y;..." get the cheapest store each,
+    // pairs="storeX,storeY,goalX,goalY;..." use the given store; one result line per query
+    @PostMapping("/plan/batch")
+    public ResponseEntity<String> planBatch(@RequestParam(name = "goals", required = false) String goals,
+                                            @RequestParam(name = "pairs", required = false) String pairs,
+                                            @RequestParam(name = "strategy", required = false) String strategy,
+                                            @RequestParam(name = "session", defaultValue = DEFAULT_SESSION) String session) {
+        Session s = session(session);
+        String name = (strategy == null || strategy.isBlank() || DeliveryPlanner.chooseStrategy(strategy) == null)
+                ? s.strategyName : strategy.toUpperCase();
+        return ResponseEntity.ok(s.planner.planBatch(name, goals, pairs));
+    }
+
+    // Incremental routes: tracked routes are repaired (LPA*) whenever traffic changes
+    @PostMapping("/routes/track")
+    public ResponseEntity<String> trackRoute(@RequestParam("store") String store,
+                                             @RequestParam("goal") String goal,
+                                             @RequestParam(name = "session", defaultValue = DEFAULT_SESSION) String session) {
+        return ResponseEntity.ok(planner(session).trackRoute(store, goal));
+    }
+
+    @GetMapping("/routes")
+    public ResponseEntity<String> trackedRoutes(@RequestParam(name = "session", defaultValue = DEFAULT_SESSION) String session) {
+        return ResponseEntity.ok(planner(session).getTrackedRoutes());
+    }
+
+    @DeleteMapping("/routes")
+    public ResponseEntity<String> clearTrackedRoutes(@RequestParam(name = "session", defaultValue = DEFAULT_SESSION) String session) {
+        planner(session).clearTrackedRoutes();
+        return ResponseEntity.ok("Tracked routes cleared");
+    }
+
+    // Traffic changes as "SrcX,SrcY,DstX,DstY,Traffic;..." (0 = blocked); returns the repaired routes
+    @PostMapping("/grid/traffic")
+    public ResponseEntity<String> changeTraffic(@RequestParam("changes") String changes,
+                                                @RequestParam(name = "session", defaultValue = DEFAULT_SESSION) String session) {
+        return ResponseEntity.ok(planner(session).applyTrafficChanges(changes));
+    }
+
+    // Route cache counters: hits, misses, evictions, entries and estimated bytes
+    @GetMapping("/cache/stats")
+    public ResponseEntity<String> cacheStats(@RequestParam(name = "session", defaultValue = DEFAULT_SESSION) String session) {
+        return ResponseEntity.ok(planner(session).getRouteCache().stats());
+    }
+
     // Benchmark: run plan() multiple times and return average CPU/RAM/time
     @PostMapping("/benchmark")
     public ResponseEntity<String> benchmark(@RequestParam(name = "strategy", required = false) String strategy,
-                                            @RequestParam(name = "runs", defaultValue = "5") int runs) {
-        String strategyName = (strategy == null || strategy.isBlank()) ? "ITERATIVEDEEPENING" : strategy.toUpperCase();
-        String result = planner.benchmark(strategyName, runs);
+                                            @RequestParam(name = "runs", defaultValue = "5") int runs,
+                                            @RequestParam(name = "session", defaultValue = DEFAULT_SESSION) String session) {
+        String strategyName = (strategy == null || strategy.isBlank()) ? "IDASTAR" : strategy.toUpperCase();
+        String result = planner(session).benchmark(strategyName, runs);
         return ResponseEntity.ok(result);
     }
 }
@@ -0,0 +1,80 @@
+package ai.proj;
+
+import java.util.Arrays;
+
+/**
+ * Radix heap for non-negative int keys. Bucket i holds keys whose highest bit
+ * differing from {@link #lastKey()} is bit i-1 (bucket 0: keys equal to it).
+ * Each entry moves to a lower bucket at most 32 times, so operations are
+ * amortised O(log C) regardless of how large individual step costs are.
+ */
+public final class RadixHeap implements MonotoneQueue {
+
+    private static final int BUCKETS = 33;
+
+    private final int[][] items = new int[BUCKETS][];
+    private final int[][] keys = new int[BUCKETS][];
+    private final int[] counts = new int[BUCKETS];
+    private int last;
+    private int size;
+
+    public RadixHeap() {
+        for (int i = 0; i < BUCKETS; i++) {
+            items[i] = new int[4];
+            keys[i] = new int[4];
+        }
+    }
+
+    private int bucketOf(int key) {
+        return key == last ? 0 : 32 - Integer.numberOfLeadingZeros(key ^ last);
+    }
+
+    private void add(int b, int item, int key) {
+        if (counts[b] == items[b].length) {
+            items[b] = Arrays.copyOf(items[b], items[b].length * 2);
+            keys[b] = Arrays.copyOf(keys[b], keys[b].length * 2);
+        }
+        items[b][counts[b]] = item;
+        keys[b][counts[b]++] = key;
+    }
+
+    @Override
+    public void push(int item, int key) {
+        add(bucketOf(key), item, key);
+        size++;
+    }
+
+    @Override
+    public int poll() {
+        if (counts[0] == 0) {
+            // Refill bucket 0 from the first non-empty bucket, re-basing on its minimum key
+            int b = 1;
+            while (counts[b] == 0) b++;
+            int[] bItems = items[b];
+            int[] bKeys = keys[b];
+            int n = counts[b];
+            int min = bKeys[0];
+            for (int i = 1; i < n; i++) min = Math.min(min, bKeys[i]);
+            last = min;
+            counts[b] = 0;
+            for (int i = 0; i < n; i++) {
+                add(bucketOf(bKeys[i]), bItems[i], bKeys[i]);
+            }
+        }
+        size--;
+        return items[0][--counts[0]];
+    }
+
+    @Override
+    public int lastKey() { return last; }
+
+    @Override
+    public boolean isEmpty() { return size == 0; }
+
+    @Override
+    public void clear() {
+        Arrays.fill(counts, 0);
+        last = 0;
+        size = 0;
+    }
+}
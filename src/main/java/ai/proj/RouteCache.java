@@ -0,0 +1,104 @@
+package ai.proj;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of single store-to-destination routes, keyed by
+ * (grid version, start cell, goal cell, strategy).
+ *
+ * Every generated, regenerated or edited grid gets a new GridModel version, so
+ * routes of an older grid can never be returned for a newer one; retainVersion()
+ * drops them eagerly to give the memory back. Eviction is least-recently-used,
+ * bounded both by entry count and by an estimate of the bytes held. All methods
+ * are synchronized, so parallel planning tasks can share one cache.
+ */
+public final class RouteCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 100_000;
+    public static final long DEFAULT_MAX_BYTES = 64L << 20;
+
+    // Rough per-entry overhead: map node, key record and PlanResult header
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private record Key(long gridVersion, int start, int goal, String strategy) {}
+
+    private final LinkedHashMap<Key, PlanResult> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final int maxEntries;
+    private final long maxBytes;
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public RouteCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES);
+    }
+
+    public RouteCache(int maxEntries, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /** Cached route, or null (counted as a miss). */
+    public synchronized PlanResult get(long gridVersion, int start, int goal, String strategy) {
+        PlanResult result = entries.get(new Key(gridVersion, start, goal, strategy));
+        if (result == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return result;
+    }
+
+    public synchronized void put(long gridVersion, int start, int goal, String strategy, PlanResult result) {
+        PlanResult previous = entries.put(new Key(gridVersion, start, goal, strategy), result);
+        if (previous != null) {
+            bytes -= sizeOf(previous);
+        }
+        bytes += sizeOf(result);
+
+        Iterator<PlanResult> eldest = entries.values().iterator();
+        while ((entries.size() > maxEntries || bytes > maxBytes) && eldest.hasNext()) {
+            bytes -= sizeOf(eldest.next());
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /** Drop every route that does not belong to the given grid version. */
+    public synchronized void retainVersion(long gridVersion) {
+        Iterator<Map.Entry<Key, PlanResult>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, PlanResult> entry = it.next();
+            if (entry.getKey().gridVersion() != gridVersion) {
+                bytes -= sizeOf(entry.getValue());
+                it.remove();
+                evictions++;
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized long getEvictions() { return evictions; }
+    public synchronized int size() { return entries.size(); }
+    public synchronized long estimatedBytes() { return bytes; }
+
+    public synchronized String stats() {
+        return "hits=" + hits + ",misses=" + misses + ",evictions=" + evictions
+                + ",entries=" + entries.size() + "/" + maxEntries
+                + ",bytes=" + bytes + "/" + maxBytes;
+    }
+
+    private static long sizeOf(PlanResult result) {
+        long words = (result.length() + PlanResult.MOVES_PER_WORD - 1) / PlanResult.MOVES_PER_WORD;
+        return ENTRY_OVERHEAD + 8 * words;
+    }
+}
@@ -0,0 +1,99 @@
+package ai.proj;
+
+import java.util.Arrays;
+
+/**
+ * Complete single-source shortest-path tree over a grid graph, kept as primitive
+ * dist/parent/action arrays indexed by cell id.
+ *
+ * One tree per store answers every destination of the grid: the cost is a
+ * dist[] lookup and the route is read by walking parent pointers back to the
+ * source. Trees are immutable once computed and may be shared across threads.
+ */
+public final class ShortestPathTree {
+
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final GridGraph graph;
+    private final int source;
+    private final int[] dist;
+    private final int[] parent;
+    private final byte[] action;
+    private final int settled;
+
+    private ShortestPathTree(GridGraph graph, int source, int[] dist, int[] parent, byte[] action, int settled) {
+        this.graph = graph;
+        this.source = source;
+        this.dist = dist;
+        this.parent = parent;
+        this.action = action;
+        this.settled = settled;
+    }
+
+    /** Run Dijkstra from {@code source} until every reachable cell is settled. */
+    public static ShortestPathTree compute(GridGraph graph, int source) {
+        int cells = graph.cellCount();
+        int[] dist = new int[cells];
+        int[] parent = new int[cells];
+        byte[] action = new byte[cells];
+        Arrays.fill(dist, UNREACHABLE);
+        Arrays.fill(parent, -1);
+
+        int[] succCell = new int[graph.maxDegree()];
+        int[] succCost = new int[graph.maxDegree()];
+        byte[] succAction = new byte[graph.maxDegree()];
+        boolean[] closed = new boolean[cells];
+        IndexedMinHeap frontier = new IndexedMinHeap(cells);
+
+        dist[source] = 0;
+        frontier.insert(source, 0);
+        int settled = 0;
+        while (!frontier.isEmpty()) {
+            int current = frontier.poll();
+            closed[current] = true;
+            settled++;
+
+            int g = dist[current];
+            int n = graph.successors(current, succCell, succCost, succAction);
+            for (int i = 0; i < n; i++) {
+                int next = succCell[i];
+                if (closed[next]) continue;
+                int newCost = g + succCost[i];
+                if (newCost < dist[next]) {
+                    dist[next] = newCost;
+                    parent[next] = current;
+                    action[next] = succAction[i];
+                    frontier.insertOrDecrease(next, newCost);
+                }
+            }
+        }
+
+        return new ShortestPathTree(graph, source, dist, parent, action, settled);
+    }
+
+    public int getSource() { return source; }
+
+    /** Number of cells settled while building the tree. */
+    public int getSettled() { return settled; }
+
+    /** Shortest cost from the source to {@code cell}, or UNREACHABLE. */
+    public int dist(int cell) { return dist[cell]; }
+
+    public boolean reaches(int cell) { return dist[cell] != UNREACHABLE; }
+
+    /** Route from the source to {@code cell} (must be reachable); nodesExpanded is the tree's settled count. */
+    public PlanResult resultTo(int cell) {
+        int depth = 0;
+        for (int c = cell; c != source; c = parent[c]) depth++;
+
+        long[] moves = PlanResult.words(depth);
+        int i = depth;
+        for (int c = cell; c != source; c = parent[c]) PlanResult.put(moves, --i, action[c]);
+        return PlanResult.packed(graph.row(source), graph.col(source), moves, depth, dist[cell], settled);
+    }
+
+    public GridGraph getGraph() { return graph; }
+
+    // Backing dist array (read-only), for tables that keep only the distances
+    int[] distances() { return dist; }
+}
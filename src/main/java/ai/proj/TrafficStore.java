@@ -0,0 +1,345 @@
+package ai.proj;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Traffic levels of a grid packed into one flat array, indexed by cell id
+ * ({@code row * cols + col}) and direction: {@code [2 * id]} is the edge to the
+ * right, {@code [2 * id + 1]} the edge down, 0 = blocked.
+ *
+ * Levels are kept in one unsigned byte per edge, two bytes per cell. The first
+ * level above 255 widens the store to an unsigned short per edge, and the first
+ * above 65535 to an int. A 10000x10000 grid takes 200 MB of traffic (400 MB
+ * with levels up to 65535) instead of the ~4 GB of an int[rows][cols][2], and
+ * a lookup is one array read instead of two pointer hops.
+ *
+ * A store is filled while its grid is built (generated or parsed) and never
+ * written once a GridModel holds it. A store loaded by GridFile reads the same
+ * layout straight from a read-only mapping of the file (little-endian shorts or
+ * ints when wider than a byte); its copy() is a heap store.
+ *
+ * Traffic changes go to withChanges(), which shares the levels of this store
+ * and keeps the changed edges in a small sorted overlay, so a change costs about
+ * the number of edges changed so far, on the heap or mapped alike. Lookups only
+ * search the overlay on pages of edges that hold a change. Once the overlay
+ * grows past MAX_CHANGED edges (or a quarter of the cells) it is folded into
+ * a full copy().
+ */
+public final class TrafficStore {
+
+    public static final int RIGHT = 0;
+    public static final int DOWN = 1;
+
+    private static final int NARROW_MAX = 0xFF;
+    private static final int SHORT_MAX = 0xFFFF;
+
+    // Mapped levels are split into buffers of 2^30 bytes (a ByteBuffer is int-indexed)
+    static final int CHUNK_BITS = 30;
+    private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+
+    // Overlay: one bit per page of 2^PAGE_BITS edges, and the size at which it is folded in
+    private static final int PAGE_BITS = 12;
+    static final int MAX_CHANGED = 1 << 16;
+
+    private final int cells;
+    // Exactly one of these holds the levels
+    private byte[] narrow;
+    private short[] shorts;
+    private int[] wide;
+    private ByteBuffer[] mapped;
+    // Bytes per mapped level: 1, 2 or 4
+    private int mappedBytes;
+    // Changed edges over the shared levels above: sorted edge indexes, their
+    // levels, and the pages that hold any of them (all null without changes)
+    private int[] changedEdges;
+    private int[] changedLevels;
+    private long[] changedPages;
+    // Upper bound of the levels: raised by set(), never lowered
+    private int maxLevel;
+
+    /** Store for {@code cells} cells with every edge blocked. */
+    public TrafficStore(int cells) {
+        if (cells < 0 || cells > Integer.MAX_VALUE / 2) {
+            throw new IllegalArgumentException("Too many cells for one traffic store: " + cells);
+        }
+        this.cells = cells;
+        this.narrow = new byte[cells * 2];
+    }
+
+    private TrafficStore(TrafficStore source) {
+        this.cells = source.cells;
+        this.maxLevel = source.maxLevel;
+        if (source.mapped == null) {
+            this.narrow = source.narrow == null ? null : source.narrow.clone();
+            this.shorts = source.shorts == null ? null : source.shorts.clone();
+            this.wide = source.wide == null ? null : source.wide.clone();
+        } else {
+            int n = cells * 2;
+            if (source.mappedBytes == Integer.BYTES) {
+                this.wide = new int[n];
+                for (int i = 0; i < n; i++) wide[i] = source.mappedGet(i);
+            } else if (source.mappedBytes == Short.BYTES) {
+                this.shorts = new short[n];
+                for (int i = 0; i < n; i++) shorts[i] = (short) source.mappedGet(i);
+            } else {
+                this.narrow = new byte[n];
+                for (int i = 0; i < n; i++) narrow[i] = (byte) source.mappedGet(i);
+            }
+        }
+        if (source.changedEdges != null) {
+            for (int k = 0; k < source.changedEdges.length; k++) {
+                int i = source.changedEdges[k];
+                set(i >>> 1, i & 1, source.changedLevels[k]);
+            }
+        }
+    }
+
+    // Shares the levels of base, with the given overlay instead of base's
+    private TrafficStore(TrafficStore base, int[] changedEdges, int[] changedLevels, int maxLevel) {
+        this.cells = base.cells;
+        this.narrow = base.narrow;
+        this.shorts = base.shorts;
+        this.wide = base.wide;
+        this.mapped = base.mapped;
+        this.mappedBytes = base.mappedBytes;
+        this.maxLevel = maxLevel;
+        this.changedEdges = changedEdges;
+        this.changedLevels = changedLevels;
+        this.changedPages = new long[((cells * 2 - 1) >>> (PAGE_BITS + 6)) + 1];
+        for (int i : changedEdges) {
+            changedPages[i >>> (PAGE_BITS + 6)] |= 1L << (i >>> PAGE_BITS);
+        }
+    }
+
+    private TrafficStore(int cells, ByteBuffer[] chunks, int bytesPerLevel, int maxLevel) {
+        this.cells = cells;
+        this.mapped = chunks;
+        this.mappedBytes = bytesPerLevel;
+        this.maxLevel = maxLevel;
+    }
+
+    /**
+     * Read-only store over mapped levels: chunk k holds bytes [k << CHUNK_BITS, ...)
+     * of the level array, {@code bytesPerLevel} (1, 2 or 4) unsigned little-endian
+     * bytes per edge.
+     */
+    static TrafficStore mapped(int cells, ByteBuffer[] chunks, int bytesPerLevel, int maxLevel) {
+        if (bytesPerLevel != 1 && bytesPerLevel != Short.BYTES && bytesPerLevel != Integer.BYTES) {
+            throw new IllegalArgumentException("Unsupported level width: " + bytesPerLevel);
+        }
+        ByteBuffer[] ordered = new ByteBuffer[chunks.length];
+        for (int k = 0; k < chunks.length; k++) {
+            ordered[k] = chunks[k].duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return new TrafficStore(cells, ordered, bytesPerLevel, maxLevel);
+    }
+
+    /** Traffic of the edge leaving {@code cell} in direction RIGHT or DOWN; 0 = blocked. */
+    public int get(int cell, int dir) {
+        int i = cell * 2 + dir;
+        if (changedPages != null && (changedPages[i >>> (PAGE_BITS + 6)] & (1L << (i >>> PAGE_BITS))) != 0) {
+            int k = Arrays.binarySearch(changedEdges, i);
+            if (k >= 0) return changedLevels[k];
+        }
+        if (narrow != null) return narrow[i] & NARROW_MAX;
+        if (shorts != null) return shorts[i] & SHORT_MAX;
+        return wide != null ? wide[i] : mappedGet(i);
+    }
+
+    private int mappedGet(int i) {
+        if (mappedBytes == 1) {
+            return mapped[i >>> CHUNK_BITS].get(i & CHUNK_MASK) & NARROW_MAX;
+        }
+        // Chunks are a power of two in size, so an aligned level never straddles two
+        long offset = (long) i * mappedBytes;
+        ByteBuffer chunk = mapped[(int) (offset >>> CHUNK_BITS)];
+        int at = (int) offset & CHUNK_MASK;
+        return mappedBytes == Short.BYTES ? chunk.getShort(at) & SHORT_MAX : chunk.getInt(at);
+    }
+
+    // Only while the owning grid is being built, or on a fresh copy()
+    void set(int cell, int dir, int level) {
+        if (level < 0) {
+            throw new IllegalArgumentException("Negative traffic level: " + level);
+        }
+        if (mapped != null) {
+            throw new IllegalStateException("Mapped traffic is read-only; change a copy()");
+        }
+        if (changedEdges != null) {
+            throw new IllegalStateException("Traffic shared with another version is read-only; change a copy()");
+        }
+        int i = cell * 2 + dir;
+        if (narrow != null && level > NARROW_MAX) {
+            widenToShort();
+        }
+        if (shorts != null && level > SHORT_MAX) {
+            widenToInt();
+        }
+        if (narrow != null) {
+            narrow[i] = (byte) level;
+        } else if (shorts != null) {
+            shorts[i] = (short) level;
+        } else {
+            wide[i] = level;
+        }
+        if (level > maxLevel) maxLevel = level;
+    }
+
+    private void widenToShort() {
+        short[] levels = new short[narrow.length];
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = (short) (narrow[i] & NARROW_MAX);
+        }
+        this.shorts = levels;
+        this.narrow = null;
+    }
+
+    private void widenToInt() {
+        int[] levels = new int[shorts.length];
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = shorts[i] & SHORT_MAX;
+        }
+        this.wide = levels;
+        this.shorts = null;
+    }
+
+    /**
+     * Store with the levels of {@code edges[k]} ({@code 2 * cell + dir}) set to
+     * {@code levels[k]}, later entries winning; this store is left untouched and
+     * shares its levels with the result.
+     */
+    TrafficStore withChanges(int[] edges, int[] levels) {
+        if (edges.length == 0) {
+            return this;
+        }
+        // New changes by edge, then by position so the last change of an edge sorts last
+        long[] keyed = new long[edges.length];
+        int max = maxLevel;
+        for (int k = 0; k < edges.length; k++) {
+            if (edges[k] < 0 || edges[k] >= cells * 2) {
+                throw new IllegalArgumentException("Edge outside the store: " + edges[k]);
+            }
+            if (levels[k] < 0) {
+                throw new IllegalArgumentException("Negative traffic level: " + levels[k]);
+            }
+            keyed[k] = (long) edges[k] << 32 | k;
+            max = Math.max(max, levels[k]);
+        }
+        Arrays.sort(keyed);
+
+        int old = changedEdges == null ? 0 : changedEdges.length;
+        int[] mergedEdges = new int[old + edges.length];
+        int[] mergedLevels = new int[old + edges.length];
+        int n = 0;
+        for (int a = 0, b = 0; a < old || b < keyed.length; ) {
+            int next = b < keyed.length ? (int) (keyed[b] >>> 32) : Integer.MAX_VALUE;
+            if (a < old && changedEdges[a] < next) {
+                mergedEdges[n] = changedEdges[a];
+                mergedLevels[n++] = changedLevels[a++];
+                continue;
+            }
+            if (a < old && changedEdges[a] == next) a++; // replaced by the new change
+            while (b + 1 < keyed.length && (int) (keyed[b + 1] >>> 32) == next) b++;
+            mergedEdges[n] = next;
+            mergedLevels[n++] = levels[(int) keyed[b++]];
+        }
+
+        TrafficStore changed = new TrafficStore(this, Arrays.copyOf(mergedEdges, n),
+                                                Arrays.copyOf(mergedLevels, n), max);
+        return n > Math.min(MAX_CHANGED, cells >>> 2) ? changed.copy() : changed;
+    }
+
+    /** Independent copy, with any changes folded in, to be changed with set() before it is shared. */
+    TrafficStore copy() {
+        return new TrafficStore(this);
+    }
+
+    public int cellCount() { return cells; }
+
+    /** At least the largest level in the store (levels lowered by a change are not re-scanned). */
+    public int maxLevel() { return maxLevel; }
+
+    /** Bytes per edge: 1, then 2 once a level above 255 was set, 4 once one above 65535 was. */
+    public int bytesPerLevel() {
+        int bytes = mapped != null ? mappedBytes : narrow != null ? 1 : shorts != null ? Short.BYTES : Integer.BYTES;
+        if (changedEdges != null) {
+            bytes = Math.max(bytes, maxLevel > SHORT_MAX ? Integer.BYTES : maxLevel > NARROW_MAX ? Short.BYTES : 1);
+        }
+        return bytes;
+    }
+
+    /** True if the levels are read from a mapped file rather than the heap. */
+    public boolean isMapped() { return mapped != null; }
+
+    /** Heap bytes taken by the levels (0 when mapped), including levels shared with other versions. */
+    public long sizeInBytes() {
+        long bytes = 0;
+        if (mapped == null) {
+            bytes = narrow != null ? narrow.length : shorts != null ? (long) shorts.length * Short.BYTES
+                    : (long) wide.length * Integer.BYTES;
+        }
+        if (changedEdges != null) {
+            bytes += (long) changedEdges.length * 2 * Integer.BYTES + (long) changedPages.length * Long.BYTES;
+        }
+        return bytes;
+    }
+
+    /** Write the levels in the mapped layout: bytesPerLevel() little-endian bytes per edge. */
+    void writeTo(WritableByteChannel out) throws IOException {
+        if (changedEdges != null) {
+            int width = bytesPerLevel();
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0, n = cells * 2; i < n; i++) {
+                if (!buffer.hasRemaining()) {
+                    writeFully(out, buffer.flip());
+                    buffer.clear();
+                }
+                int level = get(i >>> 1, i & 1);
+                if (width == 1) {
+                    buffer.put((byte) level);
+                } else if (width == Short.BYTES) {
+                    buffer.putShort((short) level);
+                } else {
+                    buffer.putInt(level);
+                }
+            }
+            writeFully(out, buffer.flip());
+        } else if (narrow != null) {
+            writeFully(out, ByteBuffer.wrap(narrow));
+        } else if (shorts != null) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            for (short level : shorts) {
+                if (!buffer.hasRemaining()) {
+                    writeFully(out, buffer.flip());
+                    buffer.clear();
+                }
+                buffer.putShort(level);
+            }
+            writeFully(out, buffer.flip());
+        } else if (wide != null) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            for (int level : wide) {
+                if (!buffer.hasRemaining()) {
+                    writeFully(out, buffer.flip());
+                    buffer.clear();
+                }
+                buffer.putInt(level);
+            }
+            writeFully(out, buffer.flip());
+        } else {
+            for (ByteBuffer chunk : mapped) {
+                writeFully(out, chunk.duplicate().clear());
+            }
+        }
+    }
+
+    private static void writeFully(WritableByteChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+}
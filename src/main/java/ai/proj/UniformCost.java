@@ -1,113 +1,73 @@
 package ai.proj;
 
-import java.util.*;
-
 public class UniformCost extends GenericSearch {
-    
-    private static class Node {
-        int row, col, cost;
-        Node parent;
-        String action; // Track the canonical action taken to reach this node
-        
-        Node(int row, int col, int cost, Node parent, String action) {
-            this.row = row;
-            this.col = col;
-            this.cost = cost;
-            this.parent = parent;
-            this.action = action;
-        }
-        
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (!(o instanceof Node)) return false;
-            Node node = (Node) o;
-            return row == node.row && col == node.col;
-        }
-        
-        @Override
-        public int hashCode() {
-            return Objects.hash(row, col);
-        }
-    }
+
+    // Frontier and per-cell labels, allocated once per grid and reused across searches
+    private IndexedMinHeap frontier;
+    private CellLabels labels;
     
     @Override
-    public String search(String goalState) {
+    public PlanResult solve(String goalState) {
         // goalState format: "goalRow,goalCol" 
-        String[] goalParts = goalState.split("[,;]");
-        int goalRow = Integer.parseInt(goalParts[0]);
-        int goalCol = Integer.parseInt(goalParts[1]);
+        int goal = parseCell(goalState);
 
-        int startRowEff = (startRow >= 0 ? startRow : stores[0][0]);
-        int startColEff = (startCol >= 0 ? startCol : stores[0][1]);
+        int start = startCell();
 
-        UCSResult result = uniformCostSearch(startRowEff, startColEff, goalRow, goalCol);
-        if (result.solution == null) {
-            return "FAIL;0;" + result.nodesExpanded;
+        int nodesExpanded = uniformCostSearch(start, goal);
+        if (!labels.isClosed(goal)) {
+            return PlanResult.failure(nodesExpanded);
         }
 
         // Reconstruct path with actions
-        List<String> actions = new ArrayList<>();
-        Node current = result.solution;
-        while (current != null) {
-            if (current.action != null) {
-                actions.add(0, current.action);
-            }
-            current = current.parent;
-        }
-        String plan = String.join(",", actions);
-        return startRowEff + "," + startColEff + ";" + plan + ";" + result.solution.cost + ";" + result.nodesExpanded;
+        return labels.resultTo(goal, graph, nodesExpanded);
     }
     
-    private UCSResult uniformCostSearch(int startRow, int startCol, int goalRow, int goalCol) {
-        PriorityQueue<Node> frontier = new PriorityQueue<>(Comparator.comparingInt(n -> n.cost));
-        Set<String> visited = new HashSet<>();
+    /**
+     * Run UCS until the goal is expanded or the frontier is exhausted.
+     * Each cell is queued at most once; a cheaper path found later lowers its key
+     * in place instead of pushing a duplicate.
+     *
+     * @return number of nodes expanded
+     */
+    private int uniformCostSearch(int start, int goal) {
+        if (labels == null || labels.capacity() != graph.cellCount()) {
+            frontier = new IndexedMinHeap(graph.cellCount());
+            labels = new CellLabels(graph.cellCount());
+        }
+        frontier.clear();
+        labels.reset();
         int nodesExpanded = 0;
         
-        Node startNode = new Node(startRow, startCol, 0, null, null);
-        frontier.add(startNode);
+        labels.set(start, 0, -1, (byte) 0);
+        frontier.insert(start, 0);
         
         while (!frontier.isEmpty()) {
-            Node current = frontier.poll();
-            
-            // Check if already visited
-            String currentKey = current.row + "," + current.col;
-            if (visited.contains(currentKey)) {
-                continue;
-            }
+            int current = frontier.poll();
             
             // Mark as visited AFTER polling (guarantees optimal path in UCS)
-            visited.add(currentKey);
+            labels.close(current);
             nodesExpanded++;
             
             // Goal check
-            if (current.row == goalRow && current.col == goalCol) {
-                return new UCSResult(current, nodesExpanded);
+            if (current == goal) {
+                break;
             }
             
-            // Expand neighbors using generic successor generator
-            String currentState = current.row + "," + current.col;
-            List<Successor> successors = getSuccessors(currentState);
+            // Expand neighbors from the precomputed grid graph
+            int g = labels.g[current];
+            int n = graph.successors(current, succCell, succCost, succAction);
             
-            for (Successor succ : successors) {
-                String newKey = succ.getRow() + "," + succ.getCol();
-                if (!visited.contains(newKey)) {
-                    int newCost = current.cost + succ.stepCost;
-                    frontier.add(new Node(succ.getRow(), succ.getCol(), newCost, current, succ.action));
+            for (int i = 0; i < n; i++) {
+                int next = succCell[i];
+                if (labels.isClosed(next)) continue;
+                int newCost = g + succCost[i];
+                if (newCost < labels.bestG(next)) {
+                    labels.set(next, newCost, current, succAction[i]);
+                    frontier.insertOrDecrease(next, newCost);
                 }
             }
         }
         
-        return new UCSResult(null, nodesExpanded); // No path found
-    }
-    
-    private static class UCSResult {
-        Node solution;
-        int nodesExpanded;
-        
-        UCSResult(Node solution, int nodesExpanded) {
-            this.solution = solution;
-            this.nodesExpanded = nodesExpanded;
-        }
+        return nodesExpanded;
     }
 }
@@ -19,6 +19,11 @@ public class h1 implements heuristic {
         int c = Integer.parseInt(position.split(",")[1]);
         int goalR = Integer.parseInt(goalState.split(",")[0]);
         int goalC = Integer.parseInt(goalState.split(",")[1]);
+        return findForPosition(r, c, goalR, goalC);
+    }
+
+    @Override
+    public int findForPosition(int r, int c, int goalR, int goalC) {
         return Math.abs(goalR - r) + Math.abs(goalC - c);
     }
 }
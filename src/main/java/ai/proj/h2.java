@@ -6,6 +6,17 @@ package ai.proj;
  * heuristic implementation that can be swapped in for experimentation.
  */
 public class h2 implements heuristic {
+
+    // Tunnels of the grid given to prepare(), used by the int-based overload
+    private int numTunnels;
+    private int[][] tunnels = new int[0][2];
+
+    @Override
+    public void prepare(GridModel grid) {
+        this.numTunnels = grid.getNumTunnels();
+        this.tunnels = grid.getTunnels();
+    }
+
     @Override
     public int[][] find(String goalState, int numTunnels, int rows, int cols, int[][] tunnels) {
         int[][] heuristicValues = new int[rows][cols];
@@ -24,7 +35,15 @@ public class h2 implements heuristic {
         int c = Integer.parseInt(position.split(",")[1]);
         int goalR = Integer.parseInt(goalState.split(",")[0]);
         int goalC = Integer.parseInt(goalState.split(",")[1]);
+        return estimate(r, c, goalR, goalC, numTunnels, tunnels);
+    }
+
+    @Override
+    public int findForPosition(int r, int c, int goalR, int goalC) {
+        return estimate(r, c, goalR, goalC, this.numTunnels, this.tunnels);
+    }
 
+    private static int estimate(int r, int c, int goalR, int goalC, int numTunnels, int[][] tunnels) {
         // Base Manhattan distance
         int h = Math.abs(goalR - r) + Math.abs(goalC - c);
 
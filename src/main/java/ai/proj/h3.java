@@ -0,0 +1,53 @@
+package ai.proj;
+
+/**
+ * Heuristic h3: ALT (A*, landmarks, triangle inequality).
+ *
+ * Uses exact traffic-weighted distances from a few landmark cells (see
+ * LandmarkTables) and takes the best triangle-inequality bound, combined with
+ * h1's Manhattan distance. Unlike h1/h2 it reflects real traffic costs, so A*
+ * expands far fewer nodes on congested grids. Needs prepare(GridModel) before use.
+ */
+public class h3 implements heuristic {
+
+    private GridModel grid;
+    private LandmarkTables tables;
+
+    @Override
+    public void prepare(GridModel grid) {
+        if (this.grid != grid) {
+            this.grid = grid;
+            this.tables = LandmarkTables.forGrid(grid);
+        }
+    }
+
+    @Override
+    public int[][] find(String goalState, int numTunnels, int rows, int cols, int[][] tunnels) {
+        int[][] heuristicValues = new int[rows][cols];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                heuristicValues[i][j] = findForPosition(i + "," + j, goalState, numTunnels, rows, cols, tunnels);
+            }
+        }
+        return heuristicValues;
+    }
+
+    @Override
+    public int findForPosition(String position, String goalState, int numTunnels, int rows, int cols, int[][] tunnels) {
+        int r = Integer.parseInt(position.split(",")[0]);
+        int c = Integer.parseInt(position.split(",")[1]);
+        int goalR = Integer.parseInt(goalState.split(",")[0]);
+        int goalC = Integer.parseInt(goalState.split(",")[1]);
+        return findForPosition(r, c, goalR, goalC);
+    }
+
+    @Override
+    public int findForPosition(int r, int c, int goalR, int goalC) {
+        if (tables == null) {
+            throw new IllegalStateException("h3 needs landmark tables: call prepare(GridModel) first");
+        }
+        int cols = grid.getCols();
+        int manhattan = Math.abs(goalR - r) + Math.abs(goalC - c);
+        return Math.max(manhattan, tables.lowerBound(r * cols + c, goalR * cols + goalC));
+    }
+}
@@ -0,0 +1,128 @@
+package ai.proj;
+
+import java.util.Arrays;
+
+/**
+ * Heuristic h4: the same values as h2 (Manhattan distance, relaxed through any
+ * single tunnel), computed for a whole goal in O(cells + tunnels).
+ *
+ * h2(p) = min(M(p, goal), M(p, e1) + tc + M(e2, goal), M(p, e2) + tc + M(e1, goal))
+ * over all tunnels (e1, e2) with cost tc, where M is the Manhattan distance. That is
+ * a weighted L1 distance transform: seed the goal with 0 and each tunnel endpoint
+ * with the cost of finishing through its partner, then two raster passes with
+ * unit steps (top-left to bottom-right and back) give the minimum over all seeds
+ * for every cell. Seeds are indexed by cell, so no cell ever looks at the tunnel list.
+ */
+public class h4 implements heuristic {
+
+    private static final int INF = Integer.MAX_VALUE / 2;
+
+    private int rows;
+    private int cols;
+    private int numTunnels;
+    private int[][] tunnels = new int[0][2];
+
+    // Field of the most recent goal and grid data, for single-position lookups
+    private int lastGoal = -1;
+    private int lastRows;
+    private int lastCols;
+    private int lastNumTunnels;
+    private int[][] lastTunnels;
+    private int[] lastTable;
+
+    @Override
+    public void prepare(GridModel grid) {
+        if (this.tunnels != grid.getTunnels() || this.rows != grid.getRows() || this.cols != grid.getCols()) {
+            this.rows = grid.getRows();
+            this.cols = grid.getCols();
+            this.numTunnels = grid.getNumTunnels();
+            this.tunnels = grid.getTunnels();
+            this.lastTable = null;
+        }
+    }
+
+    @Override
+    public int[][] find(String goalState, int numTunnels, int rows, int cols, int[][] tunnels) {
+        int goalR = Integer.parseInt(goalState.split(",")[0]);
+        int goalC = Integer.parseInt(goalState.split(",")[1]);
+        int[] table = transform(goalR, goalC, rows, cols, numTunnels, tunnels);
+        int[][] heuristicValues = new int[rows][cols];
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(table, i * cols, heuristicValues[i], 0, cols);
+        }
+        return heuristicValues;
+    }
+
+    @Override
+    public int findForPosition(String position, String goalState, int numTunnels, int rows, int cols, int[][] tunnels) {
+        String[] cell = position.split(",");
+        String[] goal = goalState.split(",");
+        int r = Integer.parseInt(cell[0]);
+        int c = Integer.parseInt(cell[1]);
+        return table(Integer.parseInt(goal[0]), Integer.parseInt(goal[1]), rows, cols, numTunnels, tunnels)[r * cols + c];
+    }
+
+    @Override
+    public int findForPosition(int r, int c, int goalR, int goalC) {
+        return table(goalR, goalC, rows, cols, numTunnels, tunnels)[r * cols + c];
+    }
+
+    // Field for the goal, reused while the goal and the grid data stay the same
+    private int[] table(int goalR, int goalC, int rows, int cols, int numTunnels, int[][] tunnels) {
+        int goal = goalR * cols + goalC;
+        if (lastTable == null || lastGoal != goal || lastRows != rows || lastCols != cols
+                || lastNumTunnels != numTunnels || lastTunnels != tunnels) {
+            lastTable = transform(goalR, goalC, rows, cols, numTunnels, tunnels);
+            lastGoal = goal;
+            lastRows = rows;
+            lastCols = cols;
+            lastNumTunnels = numTunnels;
+            lastTunnels = tunnels;
+        }
+        return lastTable;
+    }
+
+    @Override
+    public int[] fillTable(int goalR, int goalC, int rows, int cols) {
+        return transform(goalR, goalC, rows, cols, this.numTunnels, this.tunnels);
+    }
+
+    private static int[] transform(int goalR, int goalC, int rows, int cols, int numTunnels, int[][] tunnels) {
+        int[] h = new int[rows * cols];
+        Arrays.fill(h, INF);
+
+        // Seeds: the goal itself, and each tunnel endpoint at the cost of going through to the goal
+        h[goalR * cols + goalC] = 0;
+        for (int t = 0; t < numTunnels; t++) {
+            int r1 = tunnels[2 * t][0], c1 = tunnels[2 * t][1];
+            int r2 = tunnels[2 * t + 1][0], c2 = tunnels[2 * t + 1][1];
+            int tunnelCost = Math.abs(r1 - r2) + Math.abs(c1 - c2);
+            int viaE1 = tunnelCost + Math.abs(goalR - r2) + Math.abs(goalC - c2);
+            int viaE2 = tunnelCost + Math.abs(goalR - r1) + Math.abs(goalC - c1);
+            h[r1 * cols + c1] = Math.min(h[r1 * cols + c1], viaE1);
+            h[r2 * cols + c2] = Math.min(h[r2 * cols + c2], viaE2);
+        }
+
+        // Forward pass: best seed above or to the left
+        for (int r = 0; r < rows; r++) {
+            int row = r * cols;
+            for (int c = 0; c < cols; c++) {
+                int v = h[row + c];
+                if (r > 0) v = Math.min(v, h[row - cols + c] + 1);
+                if (c > 0) v = Math.min(v, h[row + c - 1] + 1);
+                h[row + c] = v;
+            }
+        }
+        // Backward pass: best seed below or to the right
+        for (int r = rows - 1; r >= 0; r--) {
+            int row = r * cols;
+            for (int c = cols - 1; c >= 0; c--) {
+                int v = h[row + c];
+                if (r < rows - 1) v = Math.min(v, h[row + cols + c] + 1);
+                if (c < cols - 1) v = Math.min(v, h[row + c + 1] + 1);
+                h[row + c] = v;
+            }
+        }
+        return h;
+    }
+}
@@ -3,4 +3,21 @@ package ai.proj;
 public interface heuristic {
     int[][] find(String goalState, int numTunnels, int rows, int cols, int[][] tunnels);
     int findForPosition(String position, String goalState, int numTunnels, int rows, int cols, int[][] tunnels);
+
+    // Same estimate on plain coordinates; grid data (tunnels, tables) comes from prepare()
+    int findForPosition(int r, int c, int goalR, int goalC);
+
+    // Called when a search loads a grid; heuristics with per-grid tables build or look them up here
+    default void prepare(GridModel grid) {}
+
+    // Estimate for every cell towards one goal, indexed by cell id (r * cols + c)
+    default int[] fillTable(int goalR, int goalC, int rows, int cols) {
+        int[] table = new int[rows * cols];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                table[r * cols + c] = findForPosition(r, c, goalR, goalC);
+            }
+        }
+        return table;
+    }
 }
@@ -0,0 +1,26 @@
+package ai.proj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class BidirectionalTest {
+
+    @Test
+    void sameCostsAsUniformCost() {
+        for (int seed = 0; seed < 20; seed++) {
+            GridModel grid = TestGrids.generate(seed, 10 + seed % 9, 12 + seed % 5, seed % 2 == 0 ? 9 : 300);
+            GridGraph graph = grid.getGraph();
+            Bidirectional bidirectional = new Bidirectional();
+            for (int[] store : grid.getStores()) {
+                for (int[] destination : grid.getDestinations()) {
+                    int start = graph.id(store[0], store[1]);
+                    int goal = graph.id(destination[0], destination[1]);
+                    assertEquals(TestGrids.uniformCost(grid, start, goal),
+                            TestGrids.cost(bidirectional, grid, start, goal),
+                            () -> "cost from " + TestGrids.state(graph, start) + " to " + TestGrids.state(graph, goal));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package ai.proj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+class ContractionHierarchyTest {
+
+    @Test
+    void queriesMatchUniformCost() {
+        for (int seed = 0; seed < 15; seed++) {
+            GridModel grid = TestGrids.generate(seed, 10 + seed % 11, 12 + seed % 7, seed % 3 == 0 ? 200 : 9);
+            assertSameCosts(grid);
+        }
+    }
+
+    @Test
+    void everyCellPairOnASmallGrid() {
+        GridModel grid = TestGrids.generate(42, 7, 6, 5);
+        GridGraph graph = grid.getGraph();
+        ContractionHierarchySearch search = new ContractionHierarchySearch();
+        for (int start = 0; start < graph.cellCount(); start++) {
+            for (int goal = 0; goal < graph.cellCount(); goal++) {
+                int s = start, g = goal;
+                assertEquals(TestGrids.uniformCost(grid, start, goal), TestGrids.cost(search, grid, start, goal),
+                        () -> "cost from " + TestGrids.state(graph, s) + " to " + TestGrids.state(graph, g));
+            }
+        }
+    }
+
+    @Test
+    void hierarchyIsBuiltOncePerGridVersion() {
+        GridModel grid = TestGrids.generate(3, 20, 20, 9);
+        assertNull(ContractionHierarchy.ifBuilt(grid));
+        ContractionHierarchy hierarchy = ContractionHierarchy.forGrid(grid);
+        assertSame(hierarchy, ContractionHierarchy.forGrid(grid));
+        assertSame(hierarchy, ContractionHierarchy.ifBuilt(grid));
+
+        GridModel changed = grid.withTraffic(new int[][]{{0, 0, 0, 0}, {5, 5, 1, 7}});
+        assertNotSame(hierarchy, ContractionHierarchy.forGrid(changed));
+        assertSameCosts(changed);
+    }
+
+    private static void assertSameCosts(GridModel grid) {
+        GridGraph graph = grid.getGraph();
+        ContractionHierarchySearch search = new ContractionHierarchySearch();
+        for (int[] store : grid.getStores()) {
+            for (int[] destination : grid.getDestinations()) {
+                int start = graph.id(store[0], store[1]);
+                int goal = graph.id(destination[0], destination[1]);
+                assertEquals(TestGrids.uniformCost(grid, start, goal), TestGrids.cost(search, grid, start, goal),
+                        () -> "cost from " + TestGrids.state(graph, start) + " to " + TestGrids.state(graph, goal));
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ai.proj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.Test;
+
+class DeliveryPlannerTest {
+
+    @Test
+    void parallelPlanMatchesSequentialPlan() {
+        try (ExecutorService virtualThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int seed = 0; seed < 10; seed++) {
+                DeliveryPlanner planner = new DeliveryPlanner();
+                planner.generateGrid(new GridSpec(seed, 20, 25, 0.01, 0.03, 0.004, 0.1, 1, 9,
+                                                  GridSpec.CostDistribution.UNIFORM));
+                for (String strategy : new String[]{"UCS", "ASTAR3", "IDASTAR1"}) {
+                    String expected = planner.plan(strategy);
+                    assertEquals(expected, planner.planParallel(strategy), strategy + " on the common pool");
+                    assertEquals(expected, planner.planParallel(strategy, virtualThreads), strategy + " on virtual threads");
+                }
+            }
+        }
+    }
+}
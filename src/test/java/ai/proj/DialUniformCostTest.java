@@ -0,0 +1,83 @@
+package ai.proj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class DialUniformCostTest {
+
+    @Test
+    void bucketQueuePollsInKeyOrder() {
+        assertPollsInKeyOrder(new BucketQueue(9), 9, new Random(1));
+        assertPollsInKeyOrder(new BucketQueue(1), 1, new Random(2));
+    }
+
+    @Test
+    void radixHeapPollsInKeyOrder() {
+        assertPollsInKeyOrder(new RadixHeap(), 9, new Random(3));
+        assertPollsInKeyOrder(new RadixHeap(), 1 << 20, new Random(4));
+    }
+
+    @Test
+    void sameCostsAsUniformCostWithBuckets() {
+        for (int seed = 0; seed < 20; seed++) {
+            GridModel grid = TestGrids.generate(seed, 12 + seed % 7, 15, 9);
+            assertTrue(grid.getGraph().maxCost() <= DialUniformCost.MAX_BUCKET_STEP);
+            assertSameCosts(grid);
+        }
+    }
+
+    @Test
+    void sameCostsAsUniformCostWithRadixHeap() {
+        for (int seed = 0; seed < 10; seed++) {
+            GridModel grid = TestGrids.generate(seed, 12, 10 + seed % 5, 5000);
+            assertTrue(grid.getGraph().maxCost() > DialUniformCost.MAX_BUCKET_STEP);
+            assertSameCosts(grid);
+        }
+    }
+
+    // Every store to every destination: same cost as UCS, and a route that really costs that much
+    private static void assertSameCosts(GridModel grid) {
+        GridGraph graph = grid.getGraph();
+        DialUniformCost dial = new DialUniformCost();
+        for (int[] store : grid.getStores()) {
+            for (int[] destination : grid.getDestinations()) {
+                int start = graph.id(store[0], store[1]);
+                int goal = graph.id(destination[0], destination[1]);
+                assertEquals(TestGrids.uniformCost(grid, start, goal), TestGrids.cost(dial, grid, start, goal),
+                        () -> "cost from " + TestGrids.state(graph, start) + " to " + TestGrids.state(graph, goal));
+            }
+        }
+    }
+
+    // Dijkstra-like use: keys pushed lie in [lastKey, lastKey + maxStep]; polls must match a PriorityQueue
+    private static void assertPollsInKeyOrder(MonotoneQueue queue, int maxStep, Random random) {
+        for (int round = 0; round < 3; round++) {
+            queue.clear();
+            PriorityQueue<Integer> expected = new PriorityQueue<>();
+            Map<Integer, Integer> keyOf = new HashMap<>();
+            int item = 0;
+            int last = 0;
+            for (int step = 0; step < 20000; step++) {
+                if (expected.isEmpty() || random.nextInt(3) > 0) {
+                    int key = last + random.nextInt(maxStep + 1);
+                    queue.push(item, key);
+                    keyOf.put(item++, key);
+                    expected.add(key);
+                } else {
+                    int polled = queue.poll();
+                    int key = expected.poll();
+                    assertEquals(key, (int) keyOf.remove(polled), "key of the polled item");
+                    assertEquals(key, queue.lastKey(), "lastKey()");
+                    last = key;
+                }
+                assertEquals(expected.isEmpty(), queue.isEmpty());
+            }
+        }
+    }
+}
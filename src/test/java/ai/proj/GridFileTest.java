@@ -0,0 +1,191 @@
+package ai.proj;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class GridFileTest {
+
+    @Test
+    void roundTripsEveryTrafficWidth() throws IOException {
+        // The generator stops at 65535; one changed edge takes the last grid to int levels
+        GridModel[] grids = {
+            TestGrids.generate(0, 13, 17, 9),
+            TestGrids.generate(1, 13, 17, 1000),
+            TestGrids.generate(2, 13, 17, 1000).withTraffic(new int[][]{{6, 8, 1, 70000}}),
+        };
+        int[] width = {1, 2, 4};
+        for (int k = 0; k < grids.length; k++) {
+            GridModel grid = grids[k];
+            assertEquals(width[k], grid.getTraffic().bytesPerLevel(), "in-memory width");
+            Path file = Files.createTempFile("grid", ".bin");
+            try {
+                GridFile.write(grid, file);
+                GridModel loaded = GridFile.load(file);
+                assertTrue(loaded.getTraffic().isMapped(), "traffic is mapped");
+                assertEquals(width[k], loaded.getTraffic().bytesPerLevel(), "file width");
+                assertSameGrid(grid, loaded);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Test
+    void roundTripsChangedTraffic() throws IOException {
+        GridModel grid = TestGrids.generate(3, 10, 12, 4)
+                .withTraffic(new int[][]{{0, 0, 0, 0}, {4, 7, 1, 300}, {9, 3, 0, 2}});
+        Path file = Files.createTempFile("grid", ".bin");
+        try {
+            GridFile.write(grid, file);
+            GridModel loaded = GridFile.load(file);
+            assertEquals(2, loaded.getTraffic().bytesPerLevel(), "widened for level 300");
+            assertSameGrid(grid, loaded);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void savingOverTheMappedFileKeepsTheOldMappingIntact() throws IOException {
+        Path file = Files.createTempFile("grid", ".bin");
+        try {
+            GridFile.write(TestGrids.generate(5, 11, 11, 9), file);
+            GridModel before = GridFile.load(file);
+            int oldLevel = before.getTraffic().get(0, TrafficStore.RIGHT);
+            GridModel after = before.withTraffic(new int[][]{{0, 0, 0, oldLevel + 1}});
+
+            GridFile.write(after, file);
+            assertEquals(oldLevel, before.getTraffic().get(0, TrafficStore.RIGHT), "old mapping");
+            GridModel reloaded = GridFile.load(file);
+            assertEquals(oldLevel + 1, reloaded.getTraffic().get(0, TrafficStore.RIGHT), "new file");
+            assertSameGrid(after, reloaded);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void rejectsCorruptFiles() throws IOException {
+        GridModel grid = TestGrids.generate(7, 9, 14, 9);
+        Path file = Files.createTempFile("grid", ".bin");
+        try {
+            GridFile.write(grid, file);
+            byte[] good = Files.readAllBytes(file);
+
+            assertRejected(file, Arrays.copyOf(good, 40), 40);
+            assertRejected(file, Arrays.copyOf(good, good.length - 1), good.length - 1);
+            assertRejected(file, withInt(good, 0, 0x12345678), 0);
+            assertRejected(file, withInt(good, 4, GridFile.FORMAT_VERSION + 1), 4);
+            assertRejected(file, withInt(good, 8, 3), 8);
+            assertRejected(file, withInt(good, 12, 0), 12);
+            assertRejected(file, withInt(good, 12, 10), good.length);
+            assertRejected(file, withInt(good, 28, -1), 20);
+            assertRejected(file, withInt(good, 32, -1), 32);
+            assertRejected(file, withInt(good, 64, 9), 64);
+            assertRejected(file, withInt(good, 68, -1), 64);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void headerUnderstatingTheTrafficStillGivesOptimalDialRoutes() throws IOException {
+        GridModel grid = TestGrids.generate(11, 12, 15, 200);
+        Path file = Files.createTempFile("grid", ".bin");
+        try {
+            GridFile.write(grid, file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, 1), 32);
+            }
+            GridModel loaded = GridFile.load(file);
+            GridGraph graph = loaded.getGraph();
+            assertTrue(graph.maxCost() < 200, "bucket ring sized below the real traffic");
+
+            DialUniformCost dial = new DialUniformCost();
+            for (int[] store : loaded.getStores()) {
+                for (int[] destination : loaded.getDestinations()) {
+                    int start = graph.id(store[0], store[1]);
+                    int goal = graph.id(destination[0], destination[1]);
+                    assertEquals(TestGrids.uniformCost(loaded, start, goal), TestGrids.cost(dial, loaded, start, goal),
+                            () -> "cost from " + TestGrids.state(graph, start) + " to " + TestGrids.state(graph, goal));
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void writtenFilesAreNotOwnerOnly() throws IOException {
+        Path dir = Files.createTempDirectory("grids");
+        Path file = dir.resolve("grid.bin");
+        try {
+            if (Files.getFileStore(dir).supportsFileAttributeView("posix")) {
+                GridFile.write(TestGrids.generate(1, 6, 6, 4), file);
+                assertTrue(Files.getPosixFilePermissions(file).contains(PosixFilePermission.OTHERS_READ),
+                        "new file readable by others");
+
+                Set<PosixFilePermission> shared = PosixFilePermissions.fromString("rw-rw----");
+                Files.setPosixFilePermissions(file, shared);
+                GridFile.write(TestGrids.generate(2, 6, 6, 4), file);
+                assertEquals(shared, Files.getPosixFilePermissions(file), "replaced file keeps its permissions");
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.delete(dir);
+        }
+    }
+
+    private static void assertRejected(Path file, byte[] contents, long offset) throws IOException {
+        Files.write(file, contents);
+        GridFormatException e = assertThrows(GridFormatException.class, () -> GridFile.load(file));
+        assertEquals(offset, e.getOffset(), () -> "offset of: " + e.getMessage());
+    }
+
+    private static byte[] withInt(byte[] contents, int at, int value) {
+        byte[] copy = contents.clone();
+        ByteBuffer.wrap(copy).order(ByteOrder.LITTLE_ENDIAN).putInt(at, value);
+        return copy;
+    }
+
+    private static void assertSameGrid(GridModel expected, GridModel actual) {
+        assertEquals(expected.getRows(), actual.getRows(), "rows");
+        assertEquals(expected.getCols(), actual.getCols(), "cols");
+        assertCells(expected.getStores(), actual.getStores(), "stores");
+        assertCells(expected.getDestinations(), actual.getDestinations(), "destinations");
+        assertEquals(expected.getNumTunnels(), actual.getNumTunnels(), "tunnels");
+        assertCells(Arrays.copyOf(expected.getTunnels(), expected.getNumTunnels() * 2),
+                Arrays.copyOf(actual.getTunnels(), actual.getNumTunnels() * 2), "tunnel ends");
+        TrafficStore want = expected.getTraffic();
+        TrafficStore got = actual.getTraffic();
+        for (int cell = 0; cell < want.cellCount(); cell++) {
+            for (int dir = TrafficStore.RIGHT; dir <= TrafficStore.DOWN; dir++) {
+                int at = cell;
+                int d = dir;
+                assertEquals(want.get(cell, dir), got.get(cell, dir), () -> "level of edge " + at + "/" + d);
+            }
+        }
+    }
+
+    private static void assertCells(int[][] expected, int[][] actual, String what) {
+        assertEquals(expected.length, actual.length, what);
+        for (int i = 0; i < expected.length; i++) {
+            assertArrayEquals(expected[i], actual[i]);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package ai.proj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class GridPreprocessingTest {
+
+    @Test
+    void computedOncePerGrid() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        GridPreprocessing<Object> cache = new GridPreprocessing<>(grid -> {
+            runs.incrementAndGet();
+            sleep(50);
+            return new Object();
+        });
+        GridModel grid = TestGrids.generate(1, 5, 5, 4);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> cache.get(grid)));
+            }
+            Object first = results.get(0).get();
+            for (Future<Object> result : results) {
+                assertSame(first, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, runs.get());
+        assertSame(cache.get(grid), cache.ifComputed(grid));
+    }
+
+    @Test
+    void slowGridDoesNotBlockOthers() throws Exception {
+        GridModel slow = TestGrids.generate(1, 5, 5, 4);
+        GridModel fast = TestGrids.generate(2, 5, 5, 4);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        GridPreprocessing<String> cache = new GridPreprocessing<>(grid -> {
+            if (grid == slow) {
+                started.countDown();
+                await(release);
+            }
+            return "done";
+        });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> pending = executor.submit(() -> cache.get(slow));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            assertEquals("done", cache.get(fast)); // would wait for the slow grid under one global lock
+            assertNull(cache.ifComputed(slow));
+            release.countDown();
+            assertEquals("done", pending.get(10, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void failedComputationIsRetried() {
+        AtomicInteger runs = new AtomicInteger();
+        GridPreprocessing<String> cache = new GridPreprocessing<>(grid -> {
+            if (runs.incrementAndGet() == 1) {
+                throw new IllegalStateException("first run fails");
+            }
+            return "run " + runs.get();
+        });
+        GridModel grid = TestGrids.generate(3, 5, 5, 4);
+        assertThrows(IllegalStateException.class, () -> cache.get(grid));
+        assertNull(cache.ifComputed(grid));
+        assertEquals("run 2", cache.get(grid));
+        assertEquals("run 2", cache.ifComputed(grid));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package ai.proj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class H4Test {
+
+    @Test
+    void sameValuesAsH2() {
+        for (int seed = 0; seed < 10; seed++) {
+            GridModel grid = TestGrids.generate(seed, 7 + seed, 12 - seed / 2, 9);
+            h2 expected = new h2();
+            h4 actual = new h4();
+            expected.prepare(grid);
+            actual.prepare(grid);
+            int rows = grid.getRows();
+            int cols = grid.getCols();
+            for (int[] goal : grid.getDestinations()) {
+                String goalState = goal[0] + "," + goal[1];
+                for (int r = 0; r < rows; r++) {
+                    for (int c = 0; c < cols; c++) {
+                        String position = r + "," + c;
+                        int h = expected.findForPosition(r, c, goal[0], goal[1]);
+                        assertEquals(h, actual.findForPosition(r, c, goal[0], goal[1]), position + " -> " + goalState);
+                        assertEquals(h, actual.findForPosition(position, goalState, grid.getNumTunnels(), rows, cols,
+                                                               grid.getTunnels()), position + " -> " + goalState);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void stringLookupsFollowTheGridTheyAreGiven() {
+        GridModel prepared = TestGrids.generate(1, 9, 9, 4);
+        GridModel other = TestGrids.generate(2, 6, 11, 4);
+        h4 h = new h4();
+        h.prepare(prepared);
+        h2 reference = new h2();
+        for (int round = 0; round < 3; round++) {
+            for (GridModel grid : new GridModel[]{prepared, other}) {
+                int[] goal = grid.getDestinations()[0];
+                String goalState = goal[0] + "," + goal[1];
+                for (int r = 0; r < grid.getRows(); r++) {
+                    for (int c = 0; c < grid.getCols(); c++) {
+                        String position = r + "," + c;
+                        assertEquals(reference.findForPosition(position, goalState, grid.getNumTunnels(), grid.getRows(),
+                                                               grid.getCols(), grid.getTunnels()),
+                                     h.findForPosition(position, goalState, grid.getNumTunnels(), grid.getRows(),
+                                                       grid.getCols(), grid.getTunnels()));
+                    }
+                }
+            }
+        }
+    }
+}
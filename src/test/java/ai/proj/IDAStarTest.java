@@ -0,0 +1,54 @@
+package ai.proj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class IDAStarTest {
+
+    @Test
+    void optimalWithEveryHeuristic() {
+        for (int heuristic = 1; heuristic <= 4; heuristic++) {
+            for (int seed = 0; seed < 12; seed++) {
+                GridModel grid = TestGrids.generate(seed, 6 + seed % 7, 7 + seed % 5, 9);
+                assertSameCosts(grid, new IDAStar(heuristic), heuristic);
+            }
+        }
+    }
+
+    @Test
+    void optimalWithWideTrafficRange() {
+        // Thresholds then grow by many distinct f values per iteration
+        for (int seed = 0; seed < 8; seed++) {
+            GridModel grid = TestGrids.generate(seed, 9, 9, 500);
+            assertSameCosts(grid, new IDAStar(3), 3);
+        }
+    }
+
+    @Test
+    void reusedInstanceAcrossGrids() {
+        IDAStar search = new IDAStar(1);
+        for (int seed = 0; seed < 10; seed++) {
+            assertSameCosts(TestGrids.generate(seed, 5 + seed, 12 - seed / 2, 4), search, 1);
+        }
+    }
+
+    @Test
+    void rejectsUnknownHeuristic() {
+        assertThrows(IllegalArgumentException.class, () -> new IDAStar(5));
+    }
+
+    private static void assertSameCosts(GridModel grid, IDAStar search, int heuristic) {
+        GridGraph graph = grid.getGraph();
+        for (int[] store : grid.getStores()) {
+            for (int[] destination : grid.getDestinations()) {
+                int start = graph.id(store[0], store[1]);
+                int goal = graph.id(destination[0], destination[1]);
+                assertEquals(TestGrids.uniformCost(grid, start, goal), TestGrids.cost(search, grid, start, goal),
+                        () -> "h" + heuristic + " cost from " + TestGrids.state(graph, start)
+                                + " to " + TestGrids.state(graph, goal));
+            }
+        }
+    }
+}
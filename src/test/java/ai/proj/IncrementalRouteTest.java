@@ -0,0 +1,143 @@
+package ai.proj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class IncrementalRouteTest {
+
+    @Test
+    void repairedRoutesMatchFreshUniformCostSearch() {
+        Random random = new Random(17);
+        for (int trial = 0; trial < 25; trial++) {
+            GridModel grid = TestGrids.generate(trial, 10 + trial % 6, 8 + trial % 9, 9);
+            GridGraph graph = grid.getGraph();
+            List<IncrementalRoute> routes = new ArrayList<>();
+            for (int[] store : grid.getStores()) {
+                for (int[] destination : grid.getDestinations()) {
+                    routes.add(new IncrementalRoute(graph, graph.id(store[0], store[1]),
+                                                    graph.id(destination[0], destination[1])));
+                }
+            }
+            assertRoutesMatch(grid, routes);
+
+            for (int round = 0; round < 12; round++) {
+                int[][] changes = randomChanges(grid, random, 1 + random.nextInt(5));
+                grid = grid.withTraffic(changes);
+                int[][] edges = endpoints(grid, changes);
+                for (IncrementalRoute route : routes) {
+                    route.update(grid.getGraph(), edges);
+                }
+                assertRoutesMatch(grid, routes);
+            }
+        }
+    }
+
+    @Test
+    void blockingAndReopeningRouteEdges() {
+        GridModel grid = TestGrids.generate(5, 15, 15, 4);
+        GridGraph graph = grid.getGraph();
+        int[] store = grid.getStores()[0];
+        int[] destination = grid.getDestinations()[0];
+        int start = graph.id(store[0], store[1]);
+        int goal = graph.id(destination[0], destination[1]);
+        IncrementalRoute route = new IncrementalRoute(graph, start, goal);
+        int original = route.getRoute().isSuccess() ? route.getRoute().getCost() : -1;
+
+        // Block the first grid move of the current route, again and again, then reopen them all
+        List<int[]> blocked = new ArrayList<>();
+        for (int round = 0; round < 6 && route.getRoute().isSuccess(); round++) {
+            int[] change = firstGridMove(grid, route.getRoute(), start);
+            if (change == null) break;
+            blocked.add(new int[]{change[0], change[1], change[2],
+                    grid.getTraffic().get(change[0] * grid.getCols() + change[1], change[2])});
+            int[][] changes = {change};
+            grid = grid.withTraffic(changes);
+            route.update(grid.getGraph(), endpoints(grid, changes));
+            assertRoutesMatch(grid, List.of(route));
+        }
+        assertFalse(blocked.isEmpty(), "no route edge was blocked");
+
+        int[][] reopen = blocked.toArray(new int[0][]);
+        grid = grid.withTraffic(reopen);
+        route.update(grid.getGraph(), endpoints(grid, reopen));
+        assertRoutesMatch(grid, List.of(route));
+        assertEquals(original, route.getRoute().getCost(), "cost after reopening every blocked edge");
+    }
+
+    @Test
+    void trackRouteRejectsCellsOutsideTheGrid() {
+        DeliveryPlanner planner = new DeliveryPlanner();
+        planner.generateGrid(GridSpec.of(1, 8, 8));
+        for (String cell : new String[]{"1,-1", "8,0", "0,8", "x,1", "1", "1,1;2,2", ""}) {
+            String result = planner.trackRoute(cell, "0,0");
+            assertTrue(result.startsWith("FAIL: "), () -> cell + " gave " + result);
+        }
+        assertFalse(planner.trackRoute("0,0", "7,7").startsWith("FAIL: "));
+    }
+
+    private static void assertRoutesMatch(GridModel grid, List<IncrementalRoute> routes) {
+        for (IncrementalRoute route : routes) {
+            int expected = TestGrids.uniformCost(grid, route.getStart(), route.getGoal());
+            PlanResult repaired = route.getRoute();
+            assertEquals(expected, repaired.isSuccess() ? repaired.getCost() : -1,
+                    () -> "cost from " + route.getStart() + " to " + route.getGoal());
+            if (repaired.isSuccess()) {
+                TestGrids.assertRouteLeads(grid.getGraph(), repaired, route.getStart(), route.getGoal());
+            }
+        }
+    }
+
+    // {r, c, dir, level} changes on random edges; about a third of them block the edge
+    private static int[][] randomChanges(GridModel grid, Random random, int count) {
+        int[][] changes = new int[count][];
+        for (int i = 0; i < count; i++) {
+            int dir = random.nextInt(2);
+            int r = random.nextInt(grid.getRows() - dir);
+            int c = random.nextInt(grid.getCols() - (1 - dir));
+            changes[i] = new int[]{r, c, dir, random.nextInt(3) == 0 ? 0 : 1 + random.nextInt(9)};
+        }
+        return changes;
+    }
+
+    // {cellA, cellB} of every changed edge, as applyTrafficChanges passes them
+    private static int[][] endpoints(GridModel grid, int[][] changes) {
+        int cols = grid.getCols();
+        int[][] edges = new int[changes.length][];
+        for (int i = 0; i < changes.length; i++) {
+            int a = changes[i][0] * cols + changes[i][1];
+            edges[i] = new int[]{a, changes[i][2] == 0 ? a + 1 : a + cols};
+        }
+        return edges;
+    }
+
+    // Blocking change {r, c, dir, 0} for the first non-tunnel move of the route
+    private static int[] firstGridMove(GridModel grid, PlanResult route, int start) {
+        GridGraph graph = grid.getGraph();
+        int[] cells = new int[graph.maxDegree()];
+        int[] costs = new int[graph.maxDegree()];
+        byte[] actions = new byte[graph.maxDegree()];
+        int cell = start;
+        for (int i = 0; i < route.length(); i++) {
+            int action = route.action(i);
+            int r = graph.row(cell), c = graph.col(cell);
+            switch (action) {
+                case GridGraph.UP: return new int[]{r - 1, c, 1, 0};
+                case GridGraph.DOWN: return new int[]{r, c, 1, 0};
+                case GridGraph.LEFT: return new int[]{r, c - 1, 0, 0};
+                case GridGraph.RIGHT: return new int[]{r, c, 0, 0};
+                default:
+                    int n = graph.successors(cell, cells, costs, actions);
+                    for (int k = 0; k < n; k++) {
+                        if (actions[k] == action) cell = cells[k];
+                    }
+            }
+        }
+        return null;
+    }
+}
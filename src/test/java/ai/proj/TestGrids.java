@@ -0,0 +1,62 @@
+package ai.proj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Grids and route checks shared by the tests. */
+final class TestGrids {
+
+    private TestGrids() {}
+
+    /** Reproducible grid with a few stores, destinations and tunnels and traffic in 1..maxTraffic. */
+    static GridModel generate(long seed, int rows, int cols, int maxTraffic) {
+        GridGenerator generator = new GridGenerator();
+        generator.GenGrid(new GridSpec(seed, rows, cols, 3.0 / (rows * cols), 5.0 / (rows * cols),
+                2.0 / (rows * cols), 0.15, 1, maxTraffic, GridSpec.CostDistribution.UNIFORM));
+        return generator.toGridModel();
+    }
+
+    /** Cost of the cheapest route from start to goal by a fresh uniform-cost search, -1 if there is none. */
+    static int uniformCost(GridModel grid, int start, int goal) {
+        return cost(new UniformCost(), grid, start, goal);
+    }
+
+    /** Cost found by {@code strategy} from start to goal, -1 if it finds no route. */
+    static int cost(GenericSearch strategy, GridModel grid, int start, int goal) {
+        GridGraph graph = grid.getGraph();
+        PlanResult result = new DeliverySearch(strategy).solve(grid, state(graph, start), state(graph, goal));
+        if (!result.isSuccess()) {
+            return -1;
+        }
+        assertRouteLeads(graph, result, start, goal);
+        return result.getCost();
+    }
+
+    /** Follow the route's moves on {@code graph} and check that they reach goal at the stated cost. */
+    static void assertRouteLeads(GridGraph graph, PlanResult route, int start, int goal) {
+        int[] cells = new int[graph.maxDegree()];
+        int[] costs = new int[graph.maxDegree()];
+        byte[] actions = new byte[graph.maxDegree()];
+        int cell = start;
+        int total = 0;
+        for (int i = 0; i < route.length(); i++) {
+            int n = graph.successors(cell, cells, costs, actions);
+            int next = -1;
+            for (int k = 0; k < n && next < 0; k++) {
+                if (actions[k] == route.action(i)) {
+                    next = cells[k];
+                    total += costs[k];
+                }
+            }
+            assertTrue(next >= 0, "move " + i + " (" + GridGraph.actionName(route.action(i))
+                    + ") is not possible from " + state(graph, cell));
+            cell = next;
+        }
+        assertEquals(goal, cell, "route end");
+        assertEquals(route.getCost(), total, "route cost");
+    }
+
+    static String state(GridGraph graph, int cell) {
+        return graph.row(cell) + "," + graph.col(cell);
+    }
+}